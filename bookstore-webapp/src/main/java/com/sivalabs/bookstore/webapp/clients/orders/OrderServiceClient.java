@@ -1,8 +1,10 @@
 package com.sivalabs.bookstore.webapp.clients.orders;
 
 import java.util.List;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.service.annotation.GetExchange;
 import org.springframework.web.service.annotation.PostExchange;
 
@@ -10,8 +12,11 @@ public interface OrderServiceClient {
     @PostExchange("/orders/api/orders")
     OrderConfirmationDTO createOrder(@RequestBody CreateOrderRequest orderRequest);
 
+    // one page, newest first. The cursor of the next page is in the X-Next-Cursor response header, null values are
+    // left out of the query
     @GetExchange("/orders/api/orders")
-    List<OrderSummary> getOrders();
+    ResponseEntity<List<OrderSummary>> getOrders(
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size);
 
     @GetExchange("/orders/api/orders/{orderNumber}")
     OrderDTO getOrder(@PathVariable String orderNumber);
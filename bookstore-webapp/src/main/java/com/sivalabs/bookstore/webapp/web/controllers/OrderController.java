@@ -7,16 +7,20 @@ import com.sivalabs.bookstore.webapp.clients.orders.OrderServiceClient;
 import com.sivalabs.bookstore.webapp.clients.orders.OrderSummary;
 import jakarta.validation.Valid;
 import java.util.List;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 @Controller
 class OrderController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final OrderServiceClient orderServiceClient;
 
     OrderController(OrderServiceClient orderServiceClient) {
@@ -51,9 +55,19 @@ class OrderController {
         return "orders";
     }
 
+    // passes the paging of order-service through: cursor and size go out as they came in, the next page's cursor
+    // comes back in the same header
     @GetMapping("/api/orders")
     @ResponseBody
-    List<OrderSummary> getOrders() {
-        return orderServiceClient.getOrders();
+    ResponseEntity<List<OrderSummary>> getOrders(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", required = false) Integer size) {
+        ResponseEntity<List<OrderSummary>> page = orderServiceClient.getOrders(cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        String nextCursor = page.getHeaders().getFirst(NEXT_CURSOR_HEADER);
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(page.getBody());
     }
 }
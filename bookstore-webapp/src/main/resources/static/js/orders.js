@@ -1,14 +1,23 @@
 document.addEventListener('alpine:init', () => {
     Alpine.data('initData', () => ({
         orders: [],
+        // cursor of the next (older) page, null on the last page
+        nextCursor: null,
         init() {
             this.loadOrders();
             updateCartItemCount();
         },
         loadOrders() {
-            $.getJSON("/api/orders", (data) => {
+            $.getJSON("/api/orders", (data, status, xhr) => {
                 //console.log("orders :", data)
                 this.orders = data
+                this.nextCursor = xhr.getResponseHeader("X-Next-Cursor")
+            });
+        },
+        loadMoreOrders() {
+            $.getJSON("/api/orders", { cursor: this.nextCursor }, (data, status, xhr) => {
+                this.orders = this.orders.concat(data)
+                this.nextCursor = xhr.getResponseHeader("X-Next-Cursor")
             });
         },
     }))
@@ -1,8 +1,30 @@
 package com.sivalabs.bookstore.catalog;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
 
 @ConfigurationProperties(prefix = "catalog")
-public record ApplicationProperties(@DefaultValue("10") @Min(0) int pageSize) {}
+public record ApplicationProperties(
+        @DefaultValue("10") @Min(0) int pageSize,
+        @DefaultValue("100") @Min(1) int maxPageSize,
+        @DefaultValue("100") @Min(1) int maxBatchSize,
+        @DefaultValue("1000") @Min(1) int importBatchSize,
+        @DefaultValue @Valid Cache cache,
+        @DefaultValue PriceIndex priceIndex) {
+
+    // in-process cache in front of the product lookups, catalog.cache.enabled=false turns it off
+    public record Cache(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("10000") @Min(1) long maxSize,
+            @DefaultValue("10m") Duration ttl,
+            @DefaultValue("1m") Duration negativeTtl,
+            @DefaultValue("16MB") DataSize pagesMaxSize) {}
+
+    // the in-memory price index checks max(version) of the products at most every checkInterval and is rebuilt when
+    // it moved. Deletes don't move it, an index older than maxAge is rebuilt regardless
+    public record PriceIndex(@DefaultValue("5s") Duration checkInterval, @DefaultValue("1h") Duration maxAge) {}
+}
@@ -0,0 +1,59 @@
+package com.sivalabs.bookstore.catalog.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sivalabs.bookstore.catalog.ApplicationProperties;
+import com.sivalabs.bookstore.catalog.domain.product.ProductService;
+import java.time.Duration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+// the cache advice has to run before the transaction advice, otherwise every cache hit would still open a
+// transaction and borrow a connection from the pool
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+class CacheConfig {
+
+    @Bean
+    CacheManager cacheManager(ApplicationProperties properties) {
+        ApplicationProperties.Cache cache = properties.cache();
+        if (!cache.enabled()) {
+            return new NoOpCacheManager();
+        }
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // unknown product codes are cached as NullValue, they get their own (shorter) ttl
+        cacheManager.registerCustomCache(
+                ProductService.PRODUCTS_CACHE,
+                Caffeine.newBuilder()
+                        .maximumSize(cache.maxSize())
+                        .expireAfter(expiry(cache.ttl(), cache.negativeTtl()))
+                        .recordStats() // needed for the cache.gets{result=hit|miss} metrics
+                        .build());
+        return cacheManager;
+    }
+
+    private static Expiry<Object, Object> expiry(Duration ttl, Duration negativeTtl) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(Object key, Object value, long currentTime) {
+                return (value == NullValue.INSTANCE ? negativeTtl : ttl).toNanos();
+            }
+
+            @Override
+            public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+}
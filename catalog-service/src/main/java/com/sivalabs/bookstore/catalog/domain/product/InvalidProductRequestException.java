@@ -0,0 +1,12 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+public class InvalidProductRequestException extends RuntimeException {
+    public InvalidProductRequestException(String message) {
+        super(message);
+    }
+
+    public static InvalidProductRequestException tooManyCodes(int maxBatchSize) {
+        return new InvalidProductRequestException(
+                "At most " + maxBatchSize + " product codes can be requested at once");
+    }
+}
@@ -2,6 +2,8 @@ package com.sivalabs.bookstore.catalog.domain.product;
 
 import java.util.List;
 
+// in cursor mode (?after=<id>) no count query is run, so totalElements and totalPages are -1 and
+// nextCursor holds the id to pass as "after" for the next page (null on the last page)
 public record PagedResult<T>(
         List<T> data,
         long totalElements,
@@ -10,4 +12,5 @@ public record PagedResult<T>(
         boolean isFirst,
         boolean isLast,
         boolean hasNext,
-        boolean hasPrevious) {}
+        boolean hasPrevious,
+        Long nextCursor) {}
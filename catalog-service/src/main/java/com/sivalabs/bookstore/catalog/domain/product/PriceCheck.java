@@ -0,0 +1,5 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+import java.math.BigDecimal;
+
+public record PriceCheck(String code, BigDecimal price) {}
@@ -0,0 +1,204 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+import com.sivalabs.bookstore.catalog.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// code -> price lookups for order validation, answered from memory. Prices are kept as long minor units (cents) in
+// an open-addressing table, so the whole catalog is two arrays instead of a map of Product objects. The table is
+// immutable: a change to the products builds a new one and swaps it in, readers never see a half-built index.
+// Changes made in this instance rebuild it right away (ProductsChangedEvent). Changes made by other instances or
+// straight in the database are picked up by polling max(version), answered from the unique version index, at most
+// every catalog.price-index.check-interval. The poll runs on the request that finds it due, the others keep using the
+// current table meanwhile
+@Component
+public class PriceIndex {
+    private static final Logger log = LoggerFactory.getLogger(PriceIndex.class);
+
+    private static final int MINOR_UNIT_DIGITS = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxBatchSize;
+    private final long checkIntervalNanos;
+    private final long maxAgeNanos;
+    // System.nanoTime() at which the next version check is due
+    private final AtomicLong nextCheckAt = new AtomicLong();
+    private volatile Table table;
+
+    PriceIndex(JdbcTemplate jdbcTemplate, ApplicationProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxBatchSize = properties.maxBatchSize();
+        this.checkIntervalNanos = properties.priceIndex().checkInterval().toNanos();
+        this.maxAgeNanos = properties.priceIndex().maxAge().toNanos();
+        Gauge.builder("catalog.price.index.size", this, index -> index.table == null ? 0 : index.table.size)
+                .description("Products held in the in-memory price index")
+                .register(meterRegistry);
+    }
+
+    // returns the checks whose price differs from the catalog price, including codes that don't exist
+    public List<PriceMismatch> findMismatches(Collection<PriceCheck> checks) {
+        if (checks.size() > maxBatchSize) {
+            throw InvalidProductRequestException.tooManyCodes(maxBatchSize);
+        }
+        Table current = table();
+        List<PriceMismatch> mismatches = new ArrayList<>();
+        for (PriceCheck check : checks) {
+            long actual = check.code() == null ? Table.MISSING : current.get(check.code());
+            if (actual == Table.MISSING) {
+                mismatches.add(new PriceMismatch(check.code(), check.price(), null));
+            } else if (check.price() == null || !matches(check.price(), actual)) {
+                mismatches.add(new PriceMismatch(check.code(), check.price(), fromMinorUnits(actual)));
+            }
+        }
+        return mismatches;
+    }
+
+    @EventListener
+    void onProductsChanged(ProductsChangedEvent event) {
+        rebuild();
+    }
+
+    // built on first use rather than at startup, the schema may not be migrated yet while beans are created
+    private Table table() {
+        Table current = table;
+        if (current == null) {
+            synchronized (this) {
+                current = table;
+                if (current == null) {
+                    current = rebuild();
+                }
+            }
+        } else if (checkDue()) {
+            current = refreshIfChanged(current);
+        }
+        return current;
+    }
+
+    // true for the one caller that moves nextCheckAt on, concurrent callers skip the check
+    private boolean checkDue() {
+        long now = System.nanoTime();
+        long next = nextCheckAt.get();
+        return now - next >= 0 && nextCheckAt.compareAndSet(next, now + checkIntervalNanos);
+    }
+
+    private Table refreshIfChanged(Table current) {
+        if (System.nanoTime() - current.builtAt > maxAgeNanos) {
+            return rebuild();
+        }
+        try {
+            Long latest = jdbcTemplate.queryForObject("select max(version) from products", Long.class);
+            return latest != null && latest > current.version ? rebuild() : current;
+        } catch (DataAccessException e) {
+            log.warn("Checking the product version failed, keeping the price index: {}", e.getMessage());
+            return current;
+        }
+    }
+
+    private synchronized Table rebuild() {
+        long start = System.nanoTime();
+        List<String> codes = new ArrayList<>();
+        List<BigDecimal> prices = new ArrayList<>();
+        long[] version = {0};
+        // the version comes from the same snapshot as the prices, a change committed meanwhile moves max(version)
+        // past it and is picked up by the next check
+        jdbcTemplate.query("select code, price, version from products", rs -> {
+            codes.add(rs.getString(1));
+            prices.add(rs.getBigDecimal(2));
+            version[0] = Math.max(version[0], rs.getLong(3));
+        });
+        Table built = new Table(codes.size(), version[0], start);
+        for (int i = 0; i < codes.size(); i++) {
+            try {
+                built.put(codes.get(i), toMinorUnits(prices.get(i)));
+            } catch (ArithmeticException e) {
+                // rounding would make it match a price it isn't, left out so checks report it as unknown instead
+                log.warn(
+                        "Leaving product {} out of the price index, its price {} has fractions of a cent",
+                        codes.get(i),
+                        prices.get(i));
+            }
+        }
+        table = built;
+        nextCheckAt.set(System.nanoTime() + checkIntervalNanos);
+        log.info("Built price index for {} products in {} ms", built.size, (System.nanoTime() - start) / 1_000_000);
+        return built;
+    }
+
+    private static boolean matches(BigDecimal requested, long actualMinorUnits) {
+        BigDecimal scaled = requested.movePointRight(MINOR_UNIT_DIGITS);
+        // a requested price with fractions of a cent can't be equal to a catalog price
+        return scaled.stripTrailingZeros().scale() <= 0 && scaled.longValue() == actualMinorUnits;
+    }
+
+    // throws ArithmeticException for prices with fractions of a cent
+    private static long toMinorUnits(BigDecimal price) {
+        return price.setScale(MINOR_UNIT_DIGITS).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, MINOR_UNIT_DIGITS);
+    }
+
+    // open addressing with linear probing, kept at most half full so probe sequences stay short
+    static final class Table {
+        static final long MISSING = Long.MIN_VALUE;
+
+        private final String[] codes;
+        private final long[] prices;
+        private final int mask;
+        // max(version) of the products it was built from, and System.nanoTime() when the build started
+        private final long version;
+        private final long builtAt;
+        private int size;
+
+        Table(int expectedSize, long version, long builtAt) {
+            int capacity = Integer.highestOneBit(Math.max(expectedSize, 1) * 2 - 1) << 1;
+            this.codes = new String[capacity];
+            this.prices = new long[capacity];
+            this.mask = capacity - 1;
+            this.version = version;
+            this.builtAt = builtAt;
+        }
+
+        // only called while the table is built, before it is published
+        void put(String code, long price) {
+            int slot = slot(code);
+            while (codes[slot] != null && !codes[slot].equals(code)) {
+                slot = (slot + 1) & mask;
+            }
+            if (codes[slot] == null) {
+                codes[slot] = code;
+                size++;
+            }
+            prices[slot] = price;
+        }
+
+        long get(String code) {
+            int slot = slot(code);
+            String candidate;
+            while ((candidate = codes[slot]) != null) {
+                if (candidate.equals(code)) {
+                    return prices[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return MISSING;
+        }
+
+        private int slot(String code) {
+            int h = code.hashCode();
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+import java.math.BigDecimal;
+
+// actualPrice is null when the code is not in the catalog
+public record PriceMismatch(String code, BigDecimal requestedPrice, BigDecimal actualPrice) {}
@@ -0,0 +1,7 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+import java.util.List;
+
+// one page of the change feed, in version order. lastVersion is the "since" for the next poll (unchanged when
+// nothing changed), hasMore means the next page can be fetched right away
+public record ProductChanges(List<Product> products, long lastVersion, boolean hasMore) {}
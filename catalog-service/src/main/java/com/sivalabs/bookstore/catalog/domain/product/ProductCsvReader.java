@@ -0,0 +1,133 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// RFC 4180 CSV: the first record is the header (code,name,description,image_url,price in any order, description and
+// image_url are optional), fields may be quoted and quoted fields may contain commas, "" and line breaks
+class ProductCsvReader implements ProductRowReader {
+    private final BufferedReader reader;
+    private Map<String, Integer> columns;
+    private long rowNumber;
+
+    ProductCsvReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader bufferedReader ? bufferedReader : new BufferedReader(reader);
+    }
+
+    @Override
+    public Product next() throws IOException {
+        if (columns == null) {
+            columns = readHeader();
+        }
+        List<String> record = readNonBlankRecord();
+        if (record == null) {
+            return null;
+        }
+        rowNumber++;
+        if (record.size() != columns.size()) {
+            throw new IllegalArgumentException("expected " + columns.size() + " columns but found " + record.size());
+        }
+        String price = field(record, "price");
+        try {
+            return new Product(
+                    field(record, "code"),
+                    field(record, "name"),
+                    optionalField(record, "description"),
+                    optionalField(record, "image_url"),
+                    price == null || price.isBlank() ? null : new BigDecimal(price.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid price '" + price + "'");
+        }
+    }
+
+    @Override
+    public long rowNumber() {
+        return rowNumber;
+    }
+
+    private Map<String, Integer> readHeader() throws IOException {
+        List<String> header = readNonBlankRecord();
+        if (header == null) {
+            throw new InvalidProductRequestException("CSV input is empty, a header row is required");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+            columns.put("imageurl".equals(name) ? "image_url" : name, i);
+        }
+        for (String required : List.of("code", "name", "price")) {
+            if (!columns.containsKey(required)) {
+                throw new InvalidProductRequestException("CSV header is missing the '" + required + "' column");
+            }
+        }
+        return columns;
+    }
+
+    private String field(List<String> record, String column) {
+        Integer index = columns.get(column);
+        return index == null ? null : record.get(index);
+    }
+
+    // an empty optional field is stored as null, like a column left out of the header
+    private String optionalField(List<String> record, String column) {
+        String value = field(record, column);
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private List<String> readNonBlankRecord() throws IOException {
+        List<String> record;
+        do {
+            record = readRecord();
+        } while (record != null && record.size() == 1 && record.get(0).isBlank());
+        return record;
+    }
+
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (inQuotes) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
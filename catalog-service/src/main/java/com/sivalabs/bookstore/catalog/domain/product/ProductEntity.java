@@ -11,6 +11,7 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Entity
 @Table(name = "products")
@@ -33,6 +34,13 @@ class ProductEntity {
     @NotNull(message = "Product price is required") @DecimalMin("0.1") @Column(nullable = false)
     private BigDecimal price;
 
+    // both are set by the products_set_version trigger (V4 migration) on every insert and update
+    @Column(insertable = false, updatable = false)
+    private Long version;
+
+    @Column(insertable = false, updatable = false)
+    private Instant updatedAt;
+
     public ProductEntity() {}
 
     public ProductEntity(Long id, String code, String name, String description, String imageUrl, BigDecimal price) {
@@ -91,4 +99,12 @@ class ProductEntity {
     public void setPrice(BigDecimal price) {
         this.price = price;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
 }
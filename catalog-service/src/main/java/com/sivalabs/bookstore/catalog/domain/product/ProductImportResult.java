@@ -0,0 +1,7 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+import java.util.List;
+
+// rejections holds the reason for (at most) the first 100 rejected rows
+public record ProductImportResult(
+        long importedRows, long rejectedRows, List<String> rejections, long durationMillis, double rowsPerSecond) {}
@@ -0,0 +1,182 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.sivalabs.bookstore.catalog.ApplicationProperties;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Bulk upsert of supplier catalogs. Rows are streamed from the input and written with JDBC batches (one transaction
+// per batch), so a failing batch doesn't roll back what was already imported.
+@Service
+public class ProductImporter {
+    private static final Logger log = LoggerFactory.getLogger(ProductImporter.class);
+
+    // must match the "increment by" of product_id_seq, which is also what Hibernate's pooled optimizer assumes
+    static final int ID_ALLOCATION_SIZE = 50;
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+    private static final BigDecimal MIN_PRICE = new BigDecimal("0.1");
+
+    private static final String UPSERT_SQL =
+            """
+            insert into products (id, code, name, description, image_url, price)
+            values (?, ?, ?, ?, ?, ?)
+            on conflict (code) do update
+            set name = excluded.name, description = excluded.description,
+                image_url = excluded.image_url, price = excluded.price
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader productReader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    ProductImporter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher,
+            ApplicationProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productReader = objectMapper.readerFor(Product.class);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = properties.importBatchSize();
+    }
+
+    public ProductImportResult importCsv(InputStream in) {
+        return importRows(new ProductCsvReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+
+    public ProductImportResult importNdjson(InputStream in) {
+        return importRows(new ProductNdjsonReader(new InputStreamReader(in, StandardCharsets.UTF_8), productReader));
+    }
+
+    private ProductImportResult importRows(ProductRowReader reader) {
+        long start = System.nanoTime();
+        long imported = 0;
+        long rejected = 0;
+        List<String> rejections = new ArrayList<>();
+        // keyed by code: a code that shows up twice in one batch would make the upsert touch the same row twice
+        Map<String, Product> batch = new LinkedHashMap<>();
+        try {
+            while (true) {
+                Product product;
+                try {
+                    product = reader.next();
+                    if (product == null) {
+                        break;
+                    }
+                    validate(product);
+                } catch (IllegalArgumentException e) {
+                    if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                        rejections.add("row " + reader.rowNumber() + ": " + e.getMessage());
+                    }
+                    rejected++;
+                    continue;
+                }
+                batch.put(product.code(), product);
+                if (batch.size() == batchSize) {
+                    imported += write(batch.values());
+                    batch.clear();
+                }
+            }
+            imported += write(batch.values());
+        } catch (IOException | RuntimeException e) {
+            RuntimeException failure =
+                    e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+            // also after a failure, the batches written so far are committed. A failing listener must not hide why
+            // the import failed
+            if (imported > 0) {
+                try {
+                    eventPublisher.publishEvent(new ProductsChangedEvent());
+                } catch (RuntimeException listenerFailure) {
+                    failure.addSuppressed(listenerFailure);
+                }
+            }
+            throw failure;
+        }
+        if (imported > 0) {
+            eventPublisher.publishEvent(new ProductsChangedEvent());
+        }
+        long durationMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        double rowsPerSecond = imported * 1000.0 / durationMillis;
+        log.info(
+                "Imported {} products in {} ms ({} rows/s), rejected {} rows",
+                imported,
+                durationMillis,
+                Math.round(rowsPerSecond),
+                rejected);
+        return new ProductImportResult(imported, rejected, rejections, durationMillis, rowsPerSecond);
+    }
+
+    private static void validate(Product product) {
+        if (product.code() == null || product.code().isBlank()) {
+            throw new IllegalArgumentException("code is required");
+        }
+        if (product.name() == null || product.name().isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (product.price() == null) {
+            throw new IllegalArgumentException("price is required");
+        }
+        if (product.price().compareTo(MIN_PRICE) < 0) {
+            throw new IllegalArgumentException("price must be at least " + MIN_PRICE);
+        }
+    }
+
+    private int write(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return 0;
+        }
+        List<Product> rows = List.copyOf(products);
+        transactionTemplate.executeWithoutResult(status -> {
+            Iterator<Long> ids = allocateIds(rows.size()).iterator();
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, product) -> {
+                ps.setLong(1, ids.next());
+                ps.setString(2, product.code());
+                ps.setString(3, product.name());
+                ps.setString(4, product.description());
+                ps.setString(5, product.imageUrl());
+                ps.setBigDecimal(6, product.price());
+            });
+        });
+        return rows.size();
+    }
+
+    // Pooled optimizer, same as Hibernate's: every nextval hands out the block (value - 50, value], so one round trip
+    // covers a whole batch and the ids never collide with the ones the JPA side allocates from the same sequence.
+    // Rows that end up updating an existing product just leave a gap.
+    private List<Long> allocateIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE;
+            List<Long> highs = jdbcTemplate.queryForList(
+                    "select nextval('product_id_seq') from generate_series(1, ?)", Long.class, blocks);
+            for (long high : highs) {
+                for (long id = Math.max(1, high - ID_ALLOCATION_SIZE + 1); id <= high; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,42 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+// one product JSON object per line, same shape as the /api/products/export output. Lines are parsed one by one so a
+// malformed line only rejects that row
+class ProductNdjsonReader implements ProductRowReader {
+    private final BufferedReader reader;
+    private final ObjectReader productReader;
+    private long rowNumber;
+
+    ProductNdjsonReader(Reader reader, ObjectReader productReader) {
+        this.reader = reader instanceof BufferedReader bufferedReader ? bufferedReader : new BufferedReader(reader);
+        this.productReader = productReader;
+    }
+
+    @Override
+    public Product next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            rowNumber++;
+        } while (line.isBlank());
+        try {
+            return productReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public long rowNumber() {
+        return rowNumber;
+    }
+}
@@ -1,9 +1,65 @@
 package com.sivalabs.bookstore.catalog.domain.product;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 interface ProductRepository extends JpaRepository<ProductEntity, Long> {
 
     Optional<ProductEntity> findByCode(String code);
+
+    // Read paths that select straight into the Product record. No entities are instantiated, so there is nothing in
+    // the persistence context, no dirty-checking snapshot and no mapping step afterwards
+    @Query(
+            "select new com.sivalabs.bookstore.catalog.domain.product.Product(p.code, p.name, p.description, p.imageUrl, p.price) from ProductEntity p where p.code = :code")
+    Optional<Product> findProductByCode(String code);
+
+    @Query(
+            "select new com.sivalabs.bookstore.catalog.domain.product.Product(p.code, p.name, p.description, p.imageUrl, p.price) from ProductEntity p where p.code in :codes")
+    List<Product> findProductsByCodeIn(Collection<String> codes);
+
+    @Query(
+            value =
+                    "select new com.sivalabs.bookstore.catalog.domain.product.Product(p.code, p.name, p.description, p.imageUrl, p.price) from ProductEntity p",
+            countQuery = "select count(p) from ProductEntity p")
+    Page<Product> findProducts(Pageable pageable);
+
+    // used by the NDJSON export: rows are fetched from a server-side cursor 500 at a time and loaded read-only
+    // (no dirty-checking snapshots), so memory doesn't depend on the size of the catalog. Needs an open transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from ProductEntity p order by p.id")
+    Stream<ProductEntity> streamAll();
+
+    // keyset pagination: "where id > ? order by id limit ?" is served by the primary key index, so deep pages cost
+    // the same as the first one
+    List<ProductEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // change feed, served by the unique index on version
+    List<ProductEntity> findByVersionGreaterThanOrderByVersionAsc(long version, Limit limit);
+
+    // full-text search over the generated search_vector column (GIN index, see V3 migration), best matches first.
+    // A Slice is returned on purpose: it fetches one extra row instead of counting every match
+    @Query(
+            value =
+                    """
+            select p.id, p.code, p.name, p.description, p.image_url, p.price, p.version, p.updated_at
+            from products p
+            where p.search_vector @@ websearch_to_tsquery('english', :query)
+            order by ts_rank(p.search_vector, websearch_to_tsquery('english', :query)) desc, p.id
+            """,
+            nativeQuery = true)
+    Slice<ProductEntity> search(String query, Pageable pageable);
 }
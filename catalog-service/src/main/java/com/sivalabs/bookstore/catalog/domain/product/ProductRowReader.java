@@ -0,0 +1,14 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+import java.io.IOException;
+
+// reads the rows of an import file one at a time, so the file never has to fit in memory
+interface ProductRowReader {
+
+    // returns null once the input is exhausted, throws IllegalArgumentException for a row that can't be parsed
+    // (the row is then rejected and reading continues with the next one)
+    Product next() throws IOException;
+
+    // number of the row returned (or rejected) by the last call to next()
+    long rowNumber();
+}
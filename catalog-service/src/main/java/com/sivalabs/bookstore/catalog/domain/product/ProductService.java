@@ -1,25 +1,56 @@
 package com.sivalabs.bookstore.catalog.domain.product;
 
 import com.sivalabs.bookstore.catalog.ApplicationProperties;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
-@Transactional
+// nothing in here writes: read-only transactions skip the flush and load entities without dirty-checking snapshots
+@Transactional(readOnly = true)
 public class ProductService {
 
+    public static final String PRODUCTS_CACHE = "products";
+
     private final ProductRepository productRepository;
 
     private final ApplicationProperties applicationProperties;
 
-    ProductService(ProductRepository productRepository, ApplicationProperties applicationProperties) {
+    private final CacheManager cacheManager;
+
+    private final EntityManager entityManager;
+
+    ProductService(
+            ProductRepository productRepository,
+            ApplicationProperties applicationProperties,
+            CacheManager cacheManager,
+            EntityManager entityManager) {
         this.productRepository = productRepository;
         this.applicationProperties = applicationProperties;
+        this.cacheManager = cacheManager;
+        this.entityManager = entityManager;
     }
 
     public PagedResult<Product> getProducts(int pageNo) {
@@ -33,8 +64,7 @@ public class ProductService {
         // var all = productRepository.findAll(pageable);
         // final Iterable<?> productPage = productRepository.findAll(pageable);
         // or we can use below
-        Page<ProductEntity> productsPage = productRepository.findAll(pageable);
-        final Page<Product> pageOfProductEntityToProductObject = productsPage.map(ProductMapper::toProduct);
+        final Page<Product> pageOfProductEntityToProductObject = productRepository.findProducts(pageable);
 
         final PagedResult<Product> productPagedResult = new PagedResult<>(
                 pageOfProductEntityToProductObject.getContent(),
@@ -44,15 +74,129 @@ public class ProductService {
                 pageOfProductEntityToProductObject.isFirst(),
                 pageOfProductEntityToProductObject.isLast(),
                 pageOfProductEntityToProductObject.hasNext(),
-                pageOfProductEntityToProductObject.hasPrevious());
+                pageOfProductEntityToProductObject.hasPrevious(),
+                null);
         return productPagedResult;
     }
 
+    public PagedResult<Product> getProductsAfter(long afterId, Integer size) {
+        int pageSize = size == null ? applicationProperties.pageSize() : size;
+        pageSize = Math.min(Math.max(pageSize, 1), applicationProperties.maxPageSize());
+
+        // one extra row tells us whether there is a next page, so no count(*) is needed
+        List<ProductEntity> rows = productRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize + 1));
+        boolean hasNext = rows.size() > pageSize;
+        List<ProductEntity> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+        Long nextCursor = hasNext ? pageRows.get(pageRows.size() - 1).getId() : null;
+
+        return new PagedResult<>(
+                pageRows.stream().map(ProductMapper::toProduct).toList(),
+                -1,
+                -1,
+                0,
+                afterId <= 0,
+                !hasNext,
+                hasNext,
+                afterId > 0,
+                nextCursor);
+    }
+
+    public ProductChanges getChangesSince(long sinceVersion, Integer size) {
+        int pageSize = size == null ? applicationProperties.maxPageSize() : size;
+        pageSize = Math.min(Math.max(pageSize, 1), applicationProperties.maxPageSize());
+
+        List<ProductEntity> rows =
+                productRepository.findByVersionGreaterThanOrderByVersionAsc(sinceVersion, Limit.of(pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductEntity> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+        long lastVersion = pageRows.isEmpty()
+                ? sinceVersion
+                : pageRows.get(pageRows.size() - 1).getVersion();
+        return new ProductChanges(
+                pageRows.stream().map(ProductMapper::toProduct).toList(), lastVersion, hasMore);
+    }
+
+    public PagedResult<Product> searchProducts(String query, int pageNo) {
+        if (query == null || query.isBlank()) {
+            throw new InvalidProductRequestException("Search query must not be empty");
+        }
+        pageNo = pageNo <= 1 ? 0 : pageNo - 1;
+        Pageable pageable = PageRequest.of(pageNo, applicationProperties.pageSize());
+        Slice<Product> slice = productRepository.search(query, pageable).map(ProductMapper::toProduct);
+
+        // like the cursor mode, the total is not counted (-1) so the cost doesn't grow with the number of matches
+        return new PagedResult<>(
+                slice.getContent(),
+                -1,
+                -1,
+                slice.getNumber() + 1,
+                slice.isFirst(),
+                slice.isLast(),
+                slice.hasNext(),
+                slice.hasPrevious(),
+                null);
+    }
+
+    // read-through cache: unknown codes are cached too (as null) so repeated misses don't hit the database either,
+    // sync = true lets only one thread load a missing code while the others wait for its result
+    @Cacheable(cacheNames = PRODUCTS_CACHE, sync = true)
     public Optional<Product> getProductByCode(String code) {
-        final Optional<ProductEntity> byCode = productRepository.findByCode(code);
-        //        final Optional<Product> product = byCode.map(ProductMapper::toProduct); thsi can be used and its
-        // better is to use this
-        final Optional<Product> product = byCode.map(productEntity -> ProductMapper.toProduct(productEntity));
-        return product;
+        return productRepository.findProductByCode(code);
+    }
+
+    // hands every product to the consumer in id order while the rows are still being read from the cursor, each
+    // entity is detached once mapped so the persistence context doesn't grow with the catalog
+    public void exportProducts(Consumer<Product> consumer) {
+        try (Stream<ProductEntity> products = productRepository.streamAll()) {
+            products.forEach(entity -> {
+                consumer.accept(ProductMapper.toProduct(entity));
+                entityManager.detach(entity);
+            });
+        }
+    }
+
+    @EventListener
+    @CacheEvict(cacheNames = PRODUCTS_CACHE, allEntries = true)
+    public void onProductsChanged(ProductsChangedEvent event) {}
+
+    // returns only the products that exist, keyed by code in request order. Codes already in the product cache are
+    // answered from it, the rest are loaded with one "where code in (...)" query and put into the cache
+    public Map<String, Product> getProductsByCodes(Collection<String> codes) {
+        Set<String> distinctCodes = new LinkedHashSet<>(codes);
+        if (distinctCodes.size() > applicationProperties.maxBatchSize()) {
+            throw InvalidProductRequestException.tooManyCodes(applicationProperties.maxBatchSize());
+        }
+
+        Cache cache = cacheManager.getCache(PRODUCTS_CACHE);
+        Map<String, Product> products = new LinkedHashMap<>();
+        List<String> missingCodes = new ArrayList<>();
+        for (String code : distinctCodes) {
+            Cache.ValueWrapper cached = cache == null ? null : cache.get(code);
+            if (cached == null) {
+                products.put(code, null); // placeholder, keeps the request order
+                missingCodes.add(code);
+            } else if (cached.get() instanceof Product product) {
+                products.put(code, product);
+            }
+        }
+
+        if (!missingCodes.isEmpty()) {
+            Map<String, Product> loaded = new HashMap<>();
+            for (Product product : productRepository.findProductsByCodeIn(missingCodes)) {
+                loaded.put(product.code(), product);
+            }
+            for (String code : missingCodes) {
+                Product product = loaded.get(code);
+                if (cache != null) {
+                    cache.put(code, product); // null is cached as a negative lookup, same as getProductByCode
+                }
+                if (product == null) {
+                    products.remove(code);
+                } else {
+                    products.put(code, product);
+                }
+            }
+        }
+        return products;
     }
 }
@@ -0,0 +1,4 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+// published whenever rows in the products table are written, every in-process catalog cache drops its entries on it
+public record ProductsChangedEvent() {}
@@ -0,0 +1,54 @@
+package com.sivalabs.bookstore.catalog.web.controllers;
+
+import com.sivalabs.bookstore.catalog.domain.product.PagedResult;
+import com.sivalabs.bookstore.catalog.domain.product.Product;
+import java.math.BigDecimal;
+
+// strong ETags computed from the content (64-bit FNV-1a over every field that ends up in the JSON), so they are the
+// same on every instance and change whenever the serialized response would change
+final class ETags {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ETags() {}
+
+    static String of(Product product) {
+        return format(hash(FNV_OFFSET_BASIS, product));
+    }
+
+    static String of(PagedResult<Product> page) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash(hash, String.valueOf(page.totalElements()));
+        hash = hash(hash, String.valueOf(page.pageNumber()));
+        hash = hash(hash, String.valueOf(page.nextCursor()));
+        for (Product product : page.data()) {
+            hash = hash(hash, product);
+        }
+        return format(hash);
+    }
+
+    private static long hash(long hash, Product product) {
+        hash = hash(hash, product.code());
+        hash = hash(hash, product.name());
+        hash = hash(hash, product.description());
+        hash = hash(hash, product.imageUrl());
+        BigDecimal price = product.price();
+        return hash(hash, price == null ? null : price.toPlainString());
+    }
+
+    private static long hash(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= FNV_PRIME;
+            }
+        }
+        // field separator, also makes null and "" hash differently
+        hash ^= value == null ? 0x1 : 0x2;
+        return hash * FNV_PRIME;
+    }
+
+    private static String format(long hash) {
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+}
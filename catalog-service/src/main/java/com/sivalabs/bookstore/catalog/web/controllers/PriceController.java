@@ -0,0 +1,28 @@
+package com.sivalabs.bookstore.catalog.web.controllers;
+
+import com.sivalabs.bookstore.catalog.domain.product.PriceCheck;
+import com.sivalabs.bookstore.catalog.domain.product.PriceIndex;
+import com.sivalabs.bookstore.catalog.domain.product.PriceMismatch;
+import java.util.List;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/prices")
+class PriceController {
+
+    private final PriceIndex priceIndex;
+
+    PriceController(PriceIndex priceIndex) {
+        this.priceIndex = priceIndex;
+    }
+
+    // order validation in one call: takes [{code, price}] and returns only the entries that don't match the catalog,
+    // an empty list means every price is current. Served from the in-memory price index, not the database
+    @PostMapping("/validate")
+    List<PriceMismatch> validate(@RequestBody List<PriceCheck> checks) {
+        return priceIndex.findMismatches(checks);
+    }
+}
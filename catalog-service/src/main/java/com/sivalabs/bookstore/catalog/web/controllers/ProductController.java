@@ -1,10 +1,25 @@
 package com.sivalabs.bookstore.catalog.web.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.sivalabs.bookstore.catalog.domain.product.PagedResult;
 import com.sivalabs.bookstore.catalog.domain.product.Product;
+import com.sivalabs.bookstore.catalog.domain.product.ProductChanges;
+import com.sivalabs.bookstore.catalog.domain.product.ProductImportResult;
+import com.sivalabs.bookstore.catalog.domain.product.ProductImporter;
 import com.sivalabs.bookstore.catalog.domain.product.ProductNotFoundException;
 import com.sivalabs.bookstore.catalog.domain.product.ProductService;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -12,15 +27,104 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/products")
 class ProductController {
 
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final ProductService productService;
+    private final ProductImporter productImporter;
+    private final ProductPageCache productPageCache;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter productWriter;
 
-    ProductController(ProductService productService) {
+    ProductController(
+            ProductService productService,
+            ProductImporter productImporter,
+            ProductPageCache productPageCache,
+            ObjectMapper objectMapper) {
         this.productService = productService;
+        this.productImporter = productImporter;
+        this.productPageCache = productPageCache;
+        this.objectMapper = objectMapper;
+        // the servlet output stream is buffered, flushing after every line would send one tiny chunk per product
+        this.productWriter =
+                objectMapper.writerFor(Product.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
+    // ?page=n is the page-number API used by the webapp. Pages are served as pre-serialized JSON from the page cache,
+    // with a strong ETag: a matching If-None-Match gets a 304 without touching the database
     @GetMapping
-    PagedResult<Product> getProducts(@RequestParam(name = "page", defaultValue = "1") int pageNo) {
-        return productService.getProducts(pageNo);
+    ResponseEntity<byte[]> getProducts(@RequestParam(name = "page", defaultValue = "1") int pageNo) {
+        ProductPageCache.CachedPage page = productPageCache.get(pageNo);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(page.eTag())
+                .body(page.json());
+    }
+
+    // ?after=<id>&size=n switches to keyset (cursor) paging
+    @GetMapping(params = "after")
+    ResponseEntity<PagedResult<Product>> getProductsAfter(
+            @RequestParam(name = "after") long afterId, @RequestParam(name = "size", required = false) Integer size) {
+        PagedResult<Product> result = productService.getProductsAfter(afterId, size);
+        return ResponseEntity.ok().eTag(ETags.of(result)).body(result);
+    }
+
+    // change feed for local replicas: products created or modified after ?since=<version>, oldest change first.
+    // Poll with the returned lastVersion, 0 replays the whole catalog. Deletes are not part of the feed
+    @GetMapping("/changes")
+    ProductChanges getChanges(
+            @RequestParam(name = "since", defaultValue = "0") long since,
+            @RequestParam(name = "size", required = false) Integer size) {
+        return productService.getChangesSince(since, size);
+    }
+
+    // ranked full-text search over name and description, ?q= accepts web search syntax ("quoted phrases", -excluded)
+    @GetMapping("/search")
+    PagedResult<Product> searchProducts(
+            @RequestParam(name = "q") String query, @RequestParam(name = "page", defaultValue = "1") int pageNo) {
+        return productService.searchProducts(query, pageNo);
+    }
+
+    // full catalog dump, one JSON product per line. Rows are written while they are read from the database cursor so
+    // memory stays flat, gzip is applied by the server when the client sends Accept-Encoding: gzip
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON_VALUE)
+    void exportProducts(HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            productService.exportProducts(product -> {
+                try {
+                    productWriter.writeValue(generator, product);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    // bulk upsert of a supplier catalog, the request body is parsed while it is uploaded. Rows that fail validation are
+    // skipped and reported back, the rest is imported
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    ProductImportResult importCsv(InputStream body) {
+        return productImporter.importCsv(body);
+    }
+
+    @PostMapping(value = "/import", consumes = APPLICATION_NDJSON_VALUE)
+    ProductImportResult importNdjson(InputStream body) {
+        return productImporter.importNdjson(body);
+    }
+
+    // one round trip and one query for a whole cart instead of one call per order line
+    @GetMapping("/by-codes")
+    Map<String, Product> getProductsByCodes(@RequestParam List<String> codes) {
+        return productService.getProductsByCodes(codes);
+    }
+
+    @PostMapping("/by-codes")
+    Map<String, Product> getProductsByCodesInBody(@RequestBody List<String> codes) {
+        return productService.getProductsByCodes(codes);
     }
 
     @GetMapping("/{code}")
@@ -28,8 +132,9 @@ class ProductController {
         // sleep();
         final Optional<Product> productByCode = productService.getProductByCode(code);
         final ResponseEntity<Product> productResponseEntity = productByCode
-                .map(body -> ResponseEntity.ok(body))
+                .map(body -> ResponseEntity.ok().eTag(ETags.of(body)).body(body))
                 // .map(ResponseEntity::ok)//this can be used but above is for more clarity
+                // the product comes from the product cache, so a 304 for a warm code needs no database round trip
                 // .orElseThrow(() -> new ProductNotFoundException(("Product not found ") + code)); //one of the
                 // approach but not recommended
                 .orElseThrow(() -> ProductNotFoundException.forCode(code)); // its recommended
@@ -0,0 +1,81 @@
+package com.sivalabs.bookstore.catalog.web.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sivalabs.bookstore.catalog.ApplicationProperties;
+import com.sivalabs.bookstore.catalog.domain.product.PagedResult;
+import com.sivalabs.bookstore.catalog.domain.product.Product;
+import com.sivalabs.bookstore.catalog.domain.product.ProductService;
+import com.sivalabs.bookstore.catalog.domain.product.ProductsChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.UncheckedIOException;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// GET /api/products?page=n is the same for every visitor, so each page is kept as ready-to-write UTF-8 JSON together
+// with its ETag. A hit costs neither a query nor a Jackson pass, the cache is bounded by the bytes it holds
+@Component
+class ProductPageCache {
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+    private final Cache<Integer, CachedPage> cache;
+
+    ProductPageCache(
+            ProductService productService,
+            ObjectMapper objectMapper,
+            ApplicationProperties properties,
+            MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+        ApplicationProperties.Cache cacheProperties = properties.cache();
+        if (cacheProperties.enabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumWeight(cacheProperties.pagesMaxSize().toBytes())
+                    .weigher((Integer pageNo, CachedPage page) -> page.json().length)
+                    .expireAfterWrite(cacheProperties.ttl())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "product-pages");
+            Gauge.builder("catalog.product.pages.cache.bytes", cache, ProductPageCache::bytesHeld)
+                    .description("Serialized product pages held in memory")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        } else {
+            this.cache = null;
+        }
+    }
+
+    CachedPage get(int pageNo) {
+        int key = Math.max(pageNo, 1);
+        return cache == null ? render(key) : cache.get(key, this::render);
+    }
+
+    @EventListener
+    void onProductsChanged(ProductsChangedEvent event) {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private CachedPage render(int pageNo) {
+        PagedResult<Product> result = productService.getProducts(pageNo);
+        try {
+            return new CachedPage(objectMapper.writeValueAsBytes(result), ETags.of(result));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double bytesHeld(Cache<Integer, CachedPage> cache) {
+        return cache.policy()
+                .eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+    }
+
+    record CachedPage(byte[] json, String eTag) {}
+}
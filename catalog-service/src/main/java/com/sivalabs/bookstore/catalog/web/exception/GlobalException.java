@@ -1,5 +1,7 @@
 package com.sivalabs.bookstore.catalog.web.exception;
 
+import com.sivalabs.bookstore.catalog.domain.product.InvalidProductRequestException;
+import com.sivalabs.bookstore.catalog.domain.product.ProductNotFoundException;
 import java.net.URI;
 import java.time.Instant;
 import java.util.Arrays;
@@ -13,6 +15,7 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     private static final URI NOT_FOUND_TYPE = URI.create("https://api.bookstore.com/errors/not-found");
     private static final URI ISE_FOUND_TYPE = URI.create("https://api.bookstore.com/errors/server-error");
+    private static final URI BAD_REQUEST_TYPE = URI.create("https://api.bookstore.com/errors/bad-request");
     private static final String SERVICE_NAME = "catalog-service";
 
     @ExceptionHandler(Exception.class)
@@ -29,15 +32,26 @@ class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return problemDetail;
     }
 
-    //    @ExceptionHandler(ProductNotFoundException.class)
-    //    ProblemDetail handleProductNotFoundException(ProductNotFoundException e) {
-    //        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage());
-    //        problemDetail.setTitle("Product Not Found");
-    //        problemDetail.setType(NOT_FOUND_TYPE);
-    //        problemDetail.setProperty("service", SERVICE_NAME);
-    //        problemDetail.setProperty("error_category", "Generic");
-    //        problemDetail.setProperty("timestamp", Instant.now());
-    //        problemDetail.setProperty("stackTraceCUSTOM", Arrays.toString(e.getStackTrace()));
-    //        return problemDetail;
-    //    }
+    @ExceptionHandler(InvalidProductRequestException.class)
+    ProblemDetail handleInvalidProductRequestException(InvalidProductRequestException e) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+        problemDetail.setTitle("Invalid Request");
+        problemDetail.setType(BAD_REQUEST_TYPE);
+        problemDetail.setProperty("service", SERVICE_NAME);
+        problemDetail.setProperty("error_category", "Generic");
+        problemDetail.setProperty("timestamp", Instant.now());
+        return problemDetail;
+    }
+
+    // order-service treats a 404 as "unknown product" (and caches it), any other error as catalog-service failing
+    @ExceptionHandler(ProductNotFoundException.class)
+    ProblemDetail handleProductNotFoundException(ProductNotFoundException e) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage());
+        problemDetail.setTitle("Product Not Found");
+        problemDetail.setType(NOT_FOUND_TYPE);
+        problemDetail.setProperty("service", SERVICE_NAME);
+        problemDetail.setProperty("error_category", "Generic");
+        problemDetail.setProperty("timestamp", Instant.now());
+        return problemDetail;
+    }
 }
@@ -0,0 +1,32 @@
+-- change feed support: every insert/update stamps the row with the next value of product_version_seq, so
+-- "version > :since order by version" returns everything that changed since a consumer's last poll
+create sequence product_version_seq;
+
+alter table products
+    add column version    bigint,
+    add column updated_at timestamp;
+
+update products set version = nextval('product_version_seq'), updated_at = now();
+
+alter table products
+    alter column version set not null,
+    alter column updated_at set not null;
+
+-- The advisory lock is held until the writing transaction ends, so writers take their versions one after another
+-- and a version only becomes visible after every smaller one. A poller can never skip a row that commits late.
+create function products_set_version() returns trigger as
+$$
+begin
+    perform pg_advisory_xact_lock(hashtext('product_version_seq'));
+    new.version := nextval('product_version_seq');
+    new.updated_at := now();
+    return new;
+end
+$$ language plpgsql;
+
+create trigger products_set_version
+    before insert or update on products
+    for each row
+execute function products_set_version();
+
+create unique index products_version_idx on products (version);
@@ -0,0 +1,128 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.sivalabs.bookstore.catalog.testdata.TestProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+class PriceIndexTests {
+    private static final List<PriceCheck> P100_AT_10 = List.of(new PriceCheck("P100", new BigDecimal("10.00")));
+
+    private final ProductsTable products = new ProductsTable();
+
+    @Test
+    void shouldPickUpPriceChangesMadeByOtherInstances() {
+        PriceIndex index = priceIndex(Map.of("catalog.price-index.check-interval", "0s"));
+        products.put("P100", "10.00");
+        assertThat(index.findMismatches(P100_AT_10)).isEmpty();
+
+        products.put("P100", "12.00");
+
+        assertThat(index.findMismatches(P100_AT_10))
+                .containsExactly(new PriceMismatch("P100", new BigDecimal("10.00"), new BigDecimal("12.00")));
+    }
+
+    @Test
+    void shouldCheckTheVersionAtMostEveryCheckInterval() {
+        PriceIndex index = priceIndex(Map.of("catalog.price-index.check-interval", "1h"));
+        products.put("P100", "10.00");
+        index.findMismatches(P100_AT_10);
+
+        products.put("P100", "12.00");
+
+        assertThat(index.findMismatches(P100_AT_10)).isEmpty();
+        assertThat(products.versionChecks).isZero();
+    }
+
+    @Test
+    void shouldRebuildRightAwayWhenProductsChangedInThisInstance() {
+        PriceIndex index = priceIndex(Map.of("catalog.price-index.check-interval", "1h"));
+        products.put("P100", "10.00");
+        index.findMismatches(P100_AT_10);
+
+        products.put("P100", "12.00");
+        index.onProductsChanged(new ProductsChangedEvent());
+
+        assertThat(index.findMismatches(P100_AT_10)).hasSize(1);
+    }
+
+    @Test
+    void shouldRebuildAfterMaxAgeEvenWhenTheVersionDidNotMove() {
+        PriceIndex index =
+                priceIndex(Map.of("catalog.price-index.check-interval", "0s", "catalog.price-index.max-age", "0s"));
+        products.put("P100", "10.00");
+        index.findMismatches(P100_AT_10);
+
+        // a delete leaves max(version) where it was
+        products.rows.remove("P100");
+
+        assertThat(index.findMismatches(P100_AT_10))
+                .containsExactly(new PriceMismatch("P100", new BigDecimal("10.00"), null));
+    }
+
+    @Test
+    void shouldLeaveOutProductsWithFractionsOfACent() {
+        PriceIndex index = priceIndex(Map.of());
+        products.put("P100", "10.005");
+        products.put("P200", "20.00");
+
+        assertThat(index.findMismatches(List.of(
+                        new PriceCheck("P100", new BigDecimal("10.01")),
+                        new PriceCheck("P200", new BigDecimal("20.00")))))
+                .containsExactly(new PriceMismatch("P100", new BigDecimal("10.01"), null));
+    }
+
+    private PriceIndex priceIndex(Map<String, String> properties) {
+        return new PriceIndex(products, TestProperties.applicationProperties(properties), new SimpleMeterRegistry());
+    }
+
+    // the products table as far as PriceIndex reads it. Every put stamps the row with the next version
+    static class ProductsTable extends JdbcTemplate {
+        final Map<String, Object[]> rows = new TreeMap<>();
+        long version;
+        int versionChecks;
+
+        void put(String code, String price) {
+            rows.put(code, new Object[] {new BigDecimal(price), ++version});
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler handler) {
+            for (Map.Entry<String, Object[]> row : rows.entrySet()) {
+                try {
+                    handler.processRow(resultSet(row.getKey(), row.getValue()));
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            versionChecks++;
+            return requiredType.cast(rows.values().stream()
+                    .map(row -> (Long) row[1])
+                    .max(Long::compare)
+                    .orElse(null));
+        }
+
+        private static ResultSet resultSet(String code, Object[] row) throws SQLException {
+            ResultSet rs = mock(ResultSet.class);
+            given(rs.getString(1)).willReturn(code);
+            given(rs.getBigDecimal(2)).willReturn((BigDecimal) row[0]);
+            given(rs.getLong(3)).willReturn((Long) row[1]);
+            return rs;
+        }
+    }
+}
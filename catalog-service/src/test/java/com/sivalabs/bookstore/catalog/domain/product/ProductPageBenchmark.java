@@ -0,0 +1,93 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+import com.sivalabs.bookstore.catalog.CatalogServiceApplication;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// One page of products read as managed entities and mapped with ProductMapper, against the constructor-expression
+// projection ProductService uses. Not a test: run main() after mvn test-compile. It starts the application context
+// (no web server) against the Postgres at -Dbenchmark.jdbc-url (default: the docker compose catalog database), both
+// run in a read-only transaction like ProductService. The gc profiler reports the allocation per page next to the time
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductPageBenchmark {
+
+    @Param({"10", "100"})
+    int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private TransactionTemplate readOnly;
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(CatalogServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url="
+                                + System.getProperty(
+                                        "benchmark.jdbc-url", "jdbc:postgresql://localhost:15432/postgres"),
+                        "spring.datasource.username=" + System.getProperty("benchmark.jdbc-username", "postgres"),
+                        "spring.datasource.password=" + System.getProperty("benchmark.jdbc-password", "postgres"),
+                        "spring.devtools.restart.enabled=false",
+                        "logging.level.root=warn")
+                .run();
+        productRepository = context.getBean(ProductRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        pageable = PageRequest.of(0, pageSize, Sort.by(Sort.Direction.ASC, "id"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Product> entitiesAndMapper() {
+        return readOnly.execute(status -> productRepository.findAll(pageable).map(ProductMapper::toProduct));
+    }
+
+    @Benchmark
+    public Page<Product> projection() {
+        return readOnly.execute(status -> productRepository.findProducts(pageable));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                        .include(ProductPageBenchmark.class.getSimpleName())
+                        .addProfiler(GCProfiler.class)
+                        .build())
+                .run();
+    }
+}
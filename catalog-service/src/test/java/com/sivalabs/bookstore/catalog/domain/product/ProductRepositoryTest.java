@@ -11,6 +11,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.jdbc.Sql;
 
 @DataJpaTest(
@@ -81,6 +84,26 @@ class ProductRepositoryTest { // this class is an example of a Slice Test where
         assertEquals(new BigDecimal("34.0"), product.getPrice());
     }
 
+    @Test
+    void shouldSelectProductProjections() {
+        assertThat(productRepository.findProductByCode("P100"))
+                .contains(new Product(
+                        "P100",
+                        "The Hunger Games",
+                        "Winning will make you famous. Losing means certain death...",
+                        "https://images.gr-assets.com/books/1447303603l/2767052.jpg",
+                        new BigDecimal("34.0")));
+        assertThat(productRepository.findProductByCode("invalid_product_code")).isEmpty();
+
+        assertThat(productRepository.findProductsByCodeIn(List.of("P100", "P101", "invalid_product_code")))
+                .extracting(Product::code)
+                .containsExactlyInAnyOrder("P100", "P101");
+
+        Page<Product> page = productRepository.findProducts(PageRequest.of(1, 10, Sort.by("id")));
+        assertThat(page.getTotalElements()).isEqualTo(15);
+        assertThat(page.getContent()).hasSize(5);
+    }
+
     @Test
     void shouldReturnEmptyWhenProductCodeNotExists() {
         assertThat(productRepository.findByCode("invalid_product_code")).isEmpty();
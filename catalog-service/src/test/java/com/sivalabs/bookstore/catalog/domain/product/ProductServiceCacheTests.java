@@ -0,0 +1,81 @@
+package com.sivalabs.bookstore.catalog.domain.product;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.sivalabs.bookstore.catalog.ApplicationProperties;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+
+// ProductService behind the real cache configuration, with a mocked repository instead of a database
+class ProductServiceCacheTests {
+    private static final Product PRODUCT = new Product("P100", "Product 1", null, null, new BigDecimal("25.50"));
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(CacheConfiguration.class)
+            .withBean(ProductRepository.class, () -> productRepository)
+            .withBean(EntityManager.class, () -> mock(EntityManager.class))
+            .withBean(ProductService.class);
+
+    @Test
+    void shouldCacheUnknownProductCodes() {
+        given(productRepository.findProductByCode("P999")).willReturn(Optional.empty());
+
+        contextRunner.run(context -> {
+            ProductService productService = context.getBean(ProductService.class);
+
+            assertThat(productService.getProductByCode("P999")).isEmpty();
+            assertThat(productService.getProductByCode("P999")).isEmpty();
+        });
+
+        verify(productRepository, times(1)).findProductByCode("P999");
+    }
+
+    @Test
+    void shouldEvictCachedProductsWhenProductsChanged() {
+        given(productRepository.findProductByCode("P100")).willReturn(Optional.of(PRODUCT));
+
+        contextRunner.run(context -> {
+            ProductService productService = context.getBean(ProductService.class);
+
+            productService.getProductByCode("P100");
+            context.publishEvent(new ProductsChangedEvent());
+            assertThat(productService.getProductByCode("P100")).contains(PRODUCT);
+        });
+
+        verify(productRepository, times(2)).findProductByCode("P100");
+    }
+
+    @Test
+    void shouldLoadEveryTimeWhenCacheIsDisabled() {
+        given(productRepository.findProductByCode("P100")).willReturn(Optional.of(PRODUCT));
+
+        contextRunner.withPropertyValues("catalog.cache.enabled=false").run(context -> {
+            ProductService productService = context.getBean(ProductService.class);
+
+            productService.getProductByCode("P100");
+            productService.getProductByCode("P100");
+        });
+
+        verify(productRepository, times(2)).findProductByCode("P100");
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(ApplicationProperties.class)
+    @ComponentScan(
+            basePackages = "com.sivalabs.bookstore.catalog.config",
+            useDefaultFilters = false,
+            includeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = ".*\\.CacheConfig"))
+    static class CacheConfiguration {}
+}
@@ -0,0 +1,50 @@
+package com.sivalabs.bookstore.catalog.web.controllers;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.sivalabs.bookstore.catalog.AbstractIntegrationTest;
+import com.sivalabs.bookstore.catalog.domain.product.ProductsChangedEvent;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.jdbc.Sql;
+
+@Sql("/test-data.sql")
+class PriceControllerTest extends AbstractIntegrationTest {
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    // @Sql resets the table behind the application's back, so the index is told to rebuild
+    @BeforeEach
+    void rebuildPriceIndex() {
+        eventPublisher.publishEvent(new ProductsChangedEvent());
+    }
+
+    @Test
+    void shouldReturnOnlyMismatchedPrices() {
+        given().contentType(ContentType.JSON)
+                .body(
+                        """
+                        [
+                          {"code": "P100", "price": 34.00},
+                          {"code": "P101", "price": 45.00},
+                          {"code": "invalid_product_code", "price": 10.0}
+                        ]
+                        """)
+                .when()
+                .post("/api/prices/validate")
+                .then()
+                .statusCode(200)
+                .body("", hasSize(2))
+                .body("[0].code", is("P101"))
+                .body("[0].actualPrice", is(45.40f))
+                .body("[1].code", is("invalid_product_code"))
+                .body("[1].actualPrice", nullValue());
+    }
+}
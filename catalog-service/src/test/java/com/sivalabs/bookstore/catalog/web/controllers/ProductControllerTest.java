@@ -1,11 +1,16 @@
 package com.sivalabs.bookstore.catalog.web.controllers;
 
 import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 
 import com.sivalabs.bookstore.catalog.AbstractIntegrationTest;
 import io.restassured.http.ContentType;
+import java.util.List;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.context.jdbc.Sql;
 
@@ -30,6 +35,184 @@ class ProductControllerTest extends AbstractIntegrationTest {
                 .body("hasPrevious", is(false));
     }
 
+    @Test
+    void shouldReturnNotModifiedWhenPageETagMatches() {
+        String eTag = given().when()
+                .get("/api/products?page=2")
+                .then()
+                .statusCode(200)
+                .body("data", hasSize(5))
+                .extract()
+                .header("ETag");
+
+        given().header("If-None-Match", eTag)
+                .when()
+                .get("/api/products?page=2")
+                .then()
+                .statusCode(304);
+    }
+
+    @Test
+    void shouldReturnProductsUsingCursor() {
+        Integer nextCursor = given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?after=0&size=10")
+                .then()
+                .statusCode(200)
+                .body("data", hasSize(10))
+                .body("totalElements", is(-1))
+                .body("isFirst", is(true))
+                .body("hasNext", is(true))
+                .body("nextCursor", notNullValue())
+                .extract()
+                .path("nextCursor");
+
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?after={after}&size=10", nextCursor)
+                .then()
+                .statusCode(200)
+                .body("data", hasSize(5))
+                .body("isLast", is(true))
+                .body("hasNext", is(false))
+                .body("hasPrevious", is(true))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    void shouldExportAllProductsAsNdjson() {
+        String body = given().when()
+                .get("/api/products/export")
+                .then()
+                .statusCode(200)
+                .contentType("application/x-ndjson")
+                .extract()
+                .asString();
+
+        assertThat(body.lines()).hasSize(15).allSatisfy(line -> assertThat(line).startsWith("{\"code\":"));
+    }
+
+    @Test
+    void shouldSearchProductsByName() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products/search?q=hunger")
+                .then()
+                .statusCode(200)
+                .body("data", hasSize(1))
+                .body("data[0].code", is("P100"))
+                .body("pageNumber", is(1))
+                .body("hasNext", is(false));
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenProductETagMatches() {
+        String eTag = given().when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(200)
+                .header("ETag", notNullValue())
+                .extract()
+                .header("ETag");
+
+        given().header("If-None-Match", eTag)
+                .when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(304);
+    }
+
+    @Test
+    void shouldReturnOnlyExistingProductsByCodes() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products/by-codes?codes=P100,P101,invalid_product_code")
+                .then()
+                .statusCode(200)
+                .body("size()", is(2))
+                .body("P100.name", is("The Hunger Games"))
+                .body("P101.code", is("P101"));
+    }
+
+    @Test
+    void shouldReturnOnlyProductsChangedSinceVersion() {
+        long lastVersion = given().when()
+                .get("/api/products/changes?since=0&size=100")
+                .then()
+                .statusCode(200)
+                .body("products", hasSize(15))
+                .body("hasMore", is(false))
+                .extract()
+                .jsonPath()
+                .getLong("lastVersion");
+
+        given().when()
+                .get("/api/products/changes?since={since}", lastVersion)
+                .then()
+                .statusCode(200)
+                .body("products", hasSize(0))
+                .body("lastVersion", is((int) lastVersion));
+
+        given().contentType("application/x-ndjson")
+                .body("{\"code\":\"P101\",\"name\":\"To Kill a Mockingbird\",\"price\":40.0}\n")
+                .when()
+                .post("/api/products/import")
+                .then()
+                .statusCode(200);
+
+        given().when()
+                .get("/api/products/changes?since={since}", lastVersion)
+                .then()
+                .statusCode(200)
+                .body("products", hasSize(1))
+                .body("products[0].code", is("P101"))
+                .body("products[0].price", is(40.0f));
+    }
+
+    @Test
+    void shouldImportProductsFromCsv() {
+        String csv =
+                """
+                code,name,description,image_url,price
+                P100,The Hunger Games,"Updated, with a comma",https://images.example.com/p100.jpg,30.0
+                P900,New Book,"A ""quoted"" description",https://images.example.com/p900.jpg,12.5
+                P901,,missing name,,10.0
+                """;
+        given().contentType("text/csv")
+                .body(csv)
+                .when()
+                .post("/api/products/import")
+                .then()
+                .statusCode(200)
+                .body("importedRows", is(2))
+                .body("rejectedRows", is(1))
+                .body("rejections[0]", is("row 3: name is required"));
+
+        given().when()
+                .get("/api/products/{code}", "P900")
+                .then()
+                .statusCode(200)
+                .body("description", is("A \"quoted\" description"));
+        given().when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(200)
+                .body("description", is("Updated, with a comma"))
+                .body("price", is(30.0f));
+    }
+
+    @Test
+    void shouldRejectTooManyProductCodes() {
+        List<String> codes =
+                IntStream.rangeClosed(1, 101).mapToObj(i -> "P" + i).toList();
+        given().contentType(ContentType.JSON)
+                .body(codes)
+                .when()
+                .post("/api/products/by-codes")
+                .then()
+                .statusCode(400);
+    }
+
     //    @org.junit.jupiter.api.Test
     //    void shouldGetProductByCode() {
     //        Product product = given().contentType(ContentType.JSON)
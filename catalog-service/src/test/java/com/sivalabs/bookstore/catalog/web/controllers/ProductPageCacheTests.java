@@ -0,0 +1,76 @@
+package com.sivalabs.bookstore.catalog.web.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sivalabs.bookstore.catalog.domain.product.PagedResult;
+import com.sivalabs.bookstore.catalog.domain.product.Product;
+import com.sivalabs.bookstore.catalog.domain.product.ProductService;
+import com.sivalabs.bookstore.catalog.domain.product.ProductsChangedEvent;
+import com.sivalabs.bookstore.catalog.testdata.TestProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductPageCacheTests {
+    private final ProductService productService = mock(ProductService.class);
+
+    @BeforeEach
+    void setUp() {
+        given(productService.getProducts(1)).willReturn(page("25.50"), page("30.00"));
+    }
+
+    @Test
+    void shouldServeCachedPageWithoutLoadingItAgain() {
+        ProductPageCache pageCache = pageCache(Map.of());
+
+        ProductPageCache.CachedPage first = pageCache.get(1);
+        ProductPageCache.CachedPage second = pageCache.get(1);
+
+        assertThat(second).isSameAs(first);
+        verify(productService, times(1)).getProducts(1);
+    }
+
+    @Test
+    void shouldRenderPagesAgainWhenProductsChanged() {
+        ProductPageCache pageCache = pageCache(Map.of());
+        ProductPageCache.CachedPage before = pageCache.get(1);
+
+        pageCache.onProductsChanged(new ProductsChangedEvent());
+        ProductPageCache.CachedPage after = pageCache.get(1);
+
+        assertThat(new String(after.json(), StandardCharsets.UTF_8)).contains("30.0");
+        assertThat(after.eTag()).isNotEqualTo(before.eTag());
+    }
+
+    @Test
+    void shouldRenderEveryTimeWhenCacheIsDisabled() {
+        ProductPageCache pageCache = pageCache(Map.of("catalog.cache.enabled", "false"));
+
+        pageCache.get(1);
+        pageCache.get(1);
+
+        verify(productService, times(2)).getProducts(1);
+    }
+
+    private ProductPageCache pageCache(Map<String, String> properties) {
+        return new ProductPageCache(
+                productService,
+                new ObjectMapper(),
+                TestProperties.applicationProperties(properties),
+                new SimpleMeterRegistry());
+    }
+
+    private static PagedResult<Product> page(String price) {
+        Product product = new Product("P100", "Product 1", null, null, new BigDecimal(price));
+        return new PagedResult<>(List.of(product), 1, 1, 1, true, true, false, false, null);
+    }
+}
@@ -1,6 +1,8 @@
 package com.sivalabs.bookstore.orders;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
 
 @ConfigurationProperties(prefix = "orders")
 public record ApplicationProperties(
@@ -9,4 +11,72 @@ public record ApplicationProperties(
         String newOrdersQueue,
         String deliveredOrdersQueue,
         String cancelledOrdersQueue,
-        String errorOrdersQueue) {}
+        String errorOrdersQueue,
+        // order history page size, ?size= can ask for up to ordersMaxPageSize
+        @DefaultValue("20") int ordersPageSize,
+        @DefaultValue("100") int ordersMaxPageSize,
+        // overall deadline for validating all the products of one order against catalog-service
+        @DefaultValue("10s") Duration orderValidationTimeout,
+        // order events claimed, published and deleted per transaction by the outbox publisher
+        @DefaultValue("500") int publishOrderEventsBatchSize,
+        // with more than one lane the outbox is drained by that many concurrent lanes, split by hash of the order
+        // number. The events of one order stay in one lane and keep their order, each lane publishes on its own channel
+        @DefaultValue("1") int publishOrderEventsLanes,
+        // NEW orders processed per transaction by the order processing job
+        @DefaultValue("200") int processNewOrdersChunkSize,
+        // outbox rows are only deleted once RabbitMQ confirmed the message, a batch waits at most
+        // publisherConfirmTimeout for its confirms. Needs spring.rabbitmq.publisher-confirm-type=correlated
+        @DefaultValue("true") boolean publisherConfirms,
+        @DefaultValue("10s") Duration publisherConfirmTimeout,
+        @DefaultValue ProductCache productCache,
+        @DefaultValue OrderCache orderCache,
+        @DefaultValue CatalogClient catalogClient,
+        @DefaultValue JobNotifications jobNotifications,
+        @DefaultValue ProcessingPartitions processingPartitions) {
+
+    // with enabled=true the NEW-order backlog is split into count partitions by hash of the order number and every
+    // instance processes the partitions it holds a lease on, instead of one ShedLock-guarded instance doing it all.
+    // Instances heartbeat every heartbeatInterval, leases (and instances) not renewed within leaseTtl are taken over.
+    // count must be the same on all instances and well above the number of replicas
+    public record ProcessingPartitions(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("32") int count,
+            @DefaultValue("5s") Duration heartbeatInterval,
+            @DefaultValue("30s") Duration leaseTtl) {}
+
+    // with enabled=true the background jobs are woken by Postgres NOTIFY, when nothing is notified they still run
+    // every idlePollInterval
+    public record JobNotifications(
+            @DefaultValue("false") boolean enabled, @DefaultValue("1m") Duration idlePollInterval) {}
+
+    // order details served by GET /api/orders/{orderNumber}, only orders in a final status are cached. ttl only
+    // bounds how long a change made outside the application (e.g. by hand in the database) can go unnoticed
+    public record OrderCache(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("10000") long maxSize,
+            @DefaultValue("10m") Duration ttl,
+            @DefaultValue("5s") Duration inProgressTtl) {}
+
+    // HTTP client for catalog-service calls. Connections are pooled and kept alive between calls, keepAlive should
+    // stay below catalog-service's idle timeout. http2=true switches to the JDK HttpClient (h2c upgrade, one
+    // multiplexed connection), the pool settings and pool metrics then don't apply
+    public record CatalogClient(
+            @DefaultValue("5s") Duration connectTimeout,
+            @DefaultValue("5s") Duration readTimeout,
+            @DefaultValue("50") int maxConnections,
+            @DefaultValue("20") int maxConnectionsPerRoute,
+            @DefaultValue("15s") Duration keepAlive,
+            @DefaultValue("30s") Duration idleEviction,
+            @DefaultValue("false") boolean http2) {}
+
+    // local copy of the catalog products used for order validation. Entries are fresh for ttl, after that they are
+    // reloaded but may still be served for up to maxStale when catalog-service can't be reached. With
+    // staleWhileRevalidate the stale entry is returned right away and reloaded in the background
+    public record ProductCache(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("10000") long maxSize,
+            @DefaultValue("5m") Duration ttl,
+            @DefaultValue("1m") Duration negativeTtl,
+            @DefaultValue("1h") Duration maxStale,
+            @DefaultValue("false") boolean staleWhileRevalidate) {}
+}
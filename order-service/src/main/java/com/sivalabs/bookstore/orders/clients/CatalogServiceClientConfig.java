@@ -1,25 +1,80 @@
 package com.sivalabs.bookstore.orders.clients;
 
 import com.sivalabs.bookstore.orders.ApplicationProperties;
-import java.time.Duration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import java.net.http.HttpClient;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
 @Configuration
 public class CatalogServiceClientConfig {
 
     @Bean
-    RestClient restClient(ApplicationProperties properties) {
-        // Create the request factory directly
-        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-        requestFactory.setConnectTimeout((int) Duration.ofSeconds(5).toMillis());
-        requestFactory.setReadTimeout((int) Duration.ofSeconds(5).toMillis());
-
+    RestClient restClient(ApplicationProperties properties, ClientHttpRequestFactory catalogServiceRequestFactory) {
         return RestClient.builder()
                 .baseUrl(properties.catalogServiceUrl())
-                .requestFactory(requestFactory) // Pass the configured factory here
+                .requestFactory(catalogServiceRequestFactory) // Pass the configured factory here
+                .build();
+    }
+
+    // a bean so that the pooled client and its connections are closed when the application shuts down
+    @Bean
+    ClientHttpRequestFactory catalogServiceRequestFactory(
+            ApplicationProperties properties, MeterRegistry meterRegistry) {
+        ApplicationProperties.CatalogClient client = properties.catalogClient();
+        return client.http2() ? jdkRequestFactory(client) : pooledRequestFactory(client, meterRegistry);
+    }
+
+    // Apache HttpClient 5 with a connection pool, so calls reuse kept-alive connections instead of opening (and
+    // leaving in TIME_WAIT) a new one per request. Pool usage is published as httpcomponents.httpclient.pool.*
+    private static ClientHttpRequestFactory pooledRequestFactory(
+            ApplicationProperties.CatalogClient client, MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(client.maxConnections())
+                .setMaxConnPerRoute(client.maxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(client.connectTimeout()))
+                        .setSocketTimeout(Timeout.of(client.readTimeout()))
+                        // a connection idle for a while is checked before reuse, catalog-service may have closed it
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "catalog-service").bindTo(meterRegistry);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        // waiting for a free pooled connection counts against the connect timeout
+                        .setConnectionRequestTimeout(Timeout.of(client.connectTimeout()))
+                        .setResponseTimeout(Timeout.of(client.readTimeout()))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.of(client.keepAlive()))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(client.idleEviction()))
+                .build();
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    private static ClientHttpRequestFactory jdkRequestFactory(ApplicationProperties.CatalogClient client) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(client.connectTimeout())
                 .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(client.readTimeout());
+        return requestFactory;
     }
 }
@@ -0,0 +1,154 @@
+package com.sivalabs.bookstore.orders.clients;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sivalabs.bookstore.orders.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// Read-through cache in front of ProductServiceClient. Unknown codes are cached too (for negativeTtl). A known
+// product outlives its ttl by maxStale: while catalog-service is slow or down the last known product is served
+// instead of failing the order. orders.product-cache.enabled=false calls catalog-service every time.
+// The cache is asynchronous: a load (HTTP call, retry backoff included) runs on its own virtual thread and callers wait
+// on its future. With a synchronous LoadingCache the load would run inside the cache's synchronized hash bin and pin
+// the carrier threads of the order validation virtual threads while catalog-service is slow.
+// An entry past its ttl is refreshed through the cache, so there is one catalog-service call per code however many
+// orders read it meanwhile. A failed refresh keeps the entry, marked unreachable, and is not retried before another ttl
+@Component
+public class ProductCache {
+    private static final Logger log = LoggerFactory.getLogger(ProductCache.class);
+
+    private final ProductServiceClient client;
+    private final ApplicationProperties.ProductCache properties;
+    private final AsyncLoadingCache<String, CachedProduct> cache;
+    private final Timer servedAge;
+    private final Counter staleServed;
+
+    ProductCache(ProductServiceClient client, ApplicationProperties properties, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.properties = properties.productCache();
+        this.servedAge = Timer.builder("orders.product.cache.age")
+                .description("Age of the cached products used for order validation")
+                .register(meterRegistry);
+        this.staleServed = Counter.builder("orders.product.cache.stale")
+                .description("Products served past their ttl because catalog-service could not be reached")
+                .register(meterRegistry);
+        if (this.properties.enabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .maximumSize(this.properties.maxSize())
+                    .expireAfter(expiry(this.properties))
+                    .recordStats()
+                    .buildAsync(new Loader());
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "catalog-products");
+            Gauge.builder("orders.product.cache.hit.ratio", cache, c -> c.synchronous()
+                            .stats()
+                            .hitRate())
+                    .description("Share of product lookups answered without calling catalog-service")
+                    .register(meterRegistry);
+        } else {
+            this.cache = null;
+        }
+    }
+
+    // throws when catalog-service can't be reached and there is no cached product to fall back to
+    public Optional<Product> getProductByCode(String code) {
+        if (cache == null) {
+            return client.getProductByCode(code);
+        }
+        CachedProduct entry = join(cache.get(code));
+        if (System.nanoTime() - entry.checkedAt() > properties.ttl().toNanos()) {
+            // joins the refresh already running for this code, if any
+            CompletableFuture<CachedProduct> refresh = cache.synchronous().refresh(code);
+            if (!properties.staleWhileRevalidate()) {
+                entry = join(refresh);
+            }
+        }
+        if (!entry.reachable()) {
+            staleServed.increment();
+        }
+        servedAge.record(Duration.ofNanos(System.nanoTime() - entry.loadedAt()));
+        return entry.product();
+    }
+
+    private static CachedProduct join(CompletableFuture<CachedProduct> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Expiry<String, CachedProduct> expiry(ApplicationProperties.ProductCache properties) {
+        long positiveNanos = properties.ttl().plus(properties.maxStale()).toNanos();
+        long negativeNanos = properties.negativeTtl().toNanos();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String code, CachedProduct entry, long currentTime) {
+                // counted from the last successful load, a failed refresh does not extend it
+                long lifetime = entry.product().isPresent() ? positiveNanos : negativeNanos;
+                return Math.max(0, lifetime - (currentTime - entry.loadedAt()));
+            }
+
+            @Override
+            public long expireAfterUpdate(String code, CachedProduct entry, long currentTime, long currentDuration) {
+                return expireAfterCreate(code, entry, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String code, CachedProduct entry, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private class Loader implements AsyncCacheLoader<String, CachedProduct> {
+        @Override
+        public CompletableFuture<CachedProduct> asyncLoad(String code, Executor executor) {
+            return CompletableFuture.supplyAsync(() -> CachedProduct.loaded(client.getProductByCode(code)), executor);
+        }
+
+        @Override
+        public CompletableFuture<CachedProduct> asyncReload(String code, CachedProduct old, Executor executor) {
+            return CompletableFuture.supplyAsync(
+                    () -> {
+                        try {
+                            return CachedProduct.loaded(client.getProductByCode(code));
+                        } catch (RuntimeException e) {
+                            log.warn("Could not refresh product {}, using the cached one: {}", code, e.getMessage());
+                            return old.unreachable();
+                        }
+                    },
+                    executor);
+        }
+    }
+
+    // loadedAt: when the product was last read from catalog-service, checkedAt: when that was last attempted
+    private record CachedProduct(Optional<Product> product, long loadedAt, long checkedAt, boolean reachable) {
+        static CachedProduct loaded(Optional<Product> product) {
+            long now = System.nanoTime();
+            return new CachedProduct(product, now, now, true);
+        }
+
+        CachedProduct unreachable() {
+            return new CachedProduct(product, loadedAt, System.nanoTime(), false);
+        }
+    }
+}
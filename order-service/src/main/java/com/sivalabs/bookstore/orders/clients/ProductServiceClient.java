@@ -6,6 +6,7 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 
 @Component
@@ -19,33 +20,23 @@ public class ProductServiceClient {
     }
 
     @CircuitBreaker(name = "catalog-service")
-    @Retry(name = "catalog-service", fallbackMethod = "getProductByCodeFallback")
+    @Retry(name = "catalog-service")
     // by default spring will call retry three times can be configured from the properties manually
+    // only a 404 means the product doesn't exist. Any other failure (including an open circuit) is thrown, so that
+    // ProductCache can fall back to the last known product instead of rejecting the order
     public Optional<Product> getProductByCode(String code) {
         log.info("Fetching product for code: {}", code);
-        //        try {
 
         // CALLING EXTERNAL SERVICE FROM BY USING REST CLIENT FROM oRDER SERVICE -----TO------> Catalog SERVICE
-        var product =
-                restClient.get().uri("/api/products/{code}", code).retrieve().body(Product.class);
-
-        return Optional.ofNullable(product);
-        //            if i dont catch he exception here it will throw geneuc exception and global(Exception.class
-        // will handle this)
-
-        //        i have commented this try catch to show the behavior of failing instead of passing to hit the retry
-        // mechanism
-        //        } catch (Exception e) {
-        //            log.info("Error while fetching product for code: {}", code,e);
-        //            return Optional.empty(); // this will tell parent class that you need to handle Product
-        //             client.getProductByCode(item.code()).orElseThrow(() -> new InvalidOrderException("Invalid Product
-        // code:"
-        // + item.code()));
-        //        }
-    }
-
-    Optional<Product> getProductByCodeFallback(String code, Throwable t) {
-        log.info("catalog-service get product by code fallback: code:{}, Error: {} ", code, t.getMessage());
-        return Optional.empty();
+        try {
+            var product = restClient
+                    .get()
+                    .uri("/api/products/{code}", code)
+                    .retrieve()
+                    .body(Product.class);
+            return Optional.ofNullable(product);
+        } catch (HttpClientErrorException.NotFound e) {
+            return Optional.empty();
+        }
     }
 }
@@ -74,6 +74,8 @@ class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, ObjectMapper objectMapper) {
         final var rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(jacksonConverter(objectMapper));
+        // unroutable messages come back instead of being dropped, OrderEventPublisher doesn't count them as confirmed
+        rabbitTemplate.setMandatory(true);
         return rabbitTemplate;
     }
 
@@ -0,0 +1,14 @@
+package com.sivalabs.bookstore.orders.domain;
+
+// the order could not be validated because catalog-service was too slow or could not be reached. Unlike
+// InvalidOrderException the order itself may be fine, the client can retry it
+public class CatalogUnavailableException extends RuntimeException {
+
+    public CatalogUnavailableException(String message) {
+        super(message);
+    }
+
+    public CatalogUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,56 @@
+package com.sivalabs.bookstore.orders.domain;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Low-latency mode: as soon as a transaction that wrote order events commits, the outbox is drained on a background
+// thread instead of waiting for the next OrderEventsPublishingJob run. Commits arriving while a drain is queued are
+// folded into it. Delivery guarantees don't change, the events were committed to the outbox first and whatever is
+// left after a failure or crash is picked up by the scheduled job.
+// With orders.job-notifications.enabled the NOTIFY on order_events already wakes the publishing job right after the
+// commit, this publisher then stays off so one commit doesn't start two drains
+@Component
+@ConditionalOnExpression(
+        "${orders.publish-order-events-immediately:false} and !${orders.job-notifications.enabled:false}")
+class ImmediateOrderEventPublisher implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ImmediateOrderEventPublisher.class);
+
+    private final OrderEventService orderEventService;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("order-events-publisher").factory());
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    ImmediateOrderEventPublisher(OrderEventService orderEventService) {
+        this.orderEventService = orderEventService;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    void onOrderEventSaved(OrderEventSaved event) {
+        if (drainRequested.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        // reset before draining: an event committed from now on requests another run
+        drainRequested.set(false);
+        try {
+            orderEventService.publishOrderEvents();
+        } catch (Exception e) {
+            log.warn("Immediate publishing of Order Events failed, the scheduled job will retry: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,8 @@
+package com.sivalabs.bookstore.orders.domain;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid page cursor: " + cursor);
+    }
+}
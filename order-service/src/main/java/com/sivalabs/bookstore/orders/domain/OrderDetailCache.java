@@ -0,0 +1,92 @@
+package com.sivalabs.bookstore.orders.domain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sivalabs.bookstore.orders.ApplicationProperties;
+import com.sivalabs.bookstore.orders.domain.models.OrderDTO;
+import com.sivalabs.bookstore.orders.domain.models.OrderStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.stereotype.Component;
+
+// Order details as served by GET /api/orders/{orderNumber}, which the webapp polls while an order is in progress.
+// processNewOrders evicts the orders it moved to another status once their chunk has committed. Orders in a final
+// status (DELIVERED, CANCELLED, ERROR) never change again and are kept for ttl. Orders still in progress may be
+// processed by another instance, whose eviction this one doesn't see, they are kept for in-progress-ttl only.
+// Entries are keyed by order number and only returned to the order's own user. Caffeine reads don't take a lock
+@Component
+class OrderDetailCache {
+    private static final Set<OrderStatus> FINAL_STATUSES =
+            EnumSet.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED, OrderStatus.ERROR);
+
+    private final OrderRepository orderRepository;
+    private final Cache<String, OrderDTO> cache;
+
+    OrderDetailCache(OrderRepository orderRepository, ApplicationProperties properties, MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        ApplicationProperties.OrderCache orderCache = properties.orderCache();
+        if (orderCache.enabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(orderCache.maxSize())
+                    .expireAfter(expiry(orderCache))
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "order-details");
+        } else {
+            this.cache = null;
+        }
+    }
+
+    Optional<OrderDTO> get(String userName, String orderNumber) {
+        if (cache == null) {
+            return load(userName, orderNumber);
+        }
+        OrderDTO cached = cache.getIfPresent(orderNumber);
+        if (cached != null) {
+            return Optional.of(cached).filter(order -> order.user().equals(userName));
+        }
+        Optional<OrderDTO> order = load(userName, orderNumber);
+        order.ifPresent(o -> cache.put(orderNumber, o));
+        return order;
+    }
+
+    // called after the status change has committed. A read that loaded the old status before the commit and caches it
+    // after the eviction keeps it for in-progress-ttl at most
+    void evict(Collection<String> orderNumbers) {
+        if (cache != null) {
+            cache.invalidateAll(orderNumbers);
+        }
+    }
+
+    private static Expiry<String, OrderDTO> expiry(ApplicationProperties.OrderCache orderCache) {
+        long finalNanos = orderCache.ttl().toNanos();
+        long inProgressNanos = orderCache.inProgressTtl().toNanos();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String orderNumber, OrderDTO order, long currentTime) {
+                return FINAL_STATUSES.contains(order.status()) ? finalNanos : inProgressNanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(String orderNumber, OrderDTO order, long currentTime, long currentDuration) {
+                return expireAfterCreate(orderNumber, order, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String orderNumber, OrderDTO order, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private Optional<OrderDTO> load(String userName, String orderNumber) {
+        return orderRepository
+                .findByUserNameAndOrderNumber(userName, orderNumber)
+                .map(OrderMapper::convertToDTO);
+    }
+}
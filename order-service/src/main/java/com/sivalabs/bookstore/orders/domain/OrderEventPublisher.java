@@ -5,36 +5,97 @@ import com.sivalabs.bookstore.orders.domain.models.OrderCancelledEvent;
 import com.sivalabs.bookstore.orders.domain.models.OrderCreatedEvent;
 import com.sivalabs.bookstore.orders.domain.models.OrderDeliveredEvent;
 import com.sivalabs.bookstore.orders.domain.models.OrderErrorEvent;
+import com.sivalabs.bookstore.orders.domain.models.OrderEventType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
 import org.springframework.stereotype.Component;
 
+// Every publish returns a future telling whether the broker took the message. With publisher confirms the future
+// completes when RabbitMQ acks (true) or nacks/returns it (false), so many messages can be in flight at once and the
+// caller waits for all of them together. Without confirms the message is fire-and-forget and counts as delivered.
 @Component
 class OrderEventPublisher {
+    private static final Logger log = LoggerFactory.getLogger(OrderEventPublisher.class);
+    private static final CompletableFuture<Boolean> SENT = CompletableFuture.completedFuture(true);
+
     private final RabbitTemplate rabbitTemplate;
     private final ApplicationProperties properties;
+    private final boolean confirms;
+    private final Timer confirmLatency;
 
-    OrderEventPublisher(RabbitTemplate rabbitTemplate, ApplicationProperties properties) {
+    OrderEventPublisher(RabbitTemplate rabbitTemplate, ApplicationProperties properties, MeterRegistry meterRegistry) {
         this.rabbitTemplate = rabbitTemplate;
         this.properties = properties;
+        boolean confirmsSupported = rabbitTemplate.getConnectionFactory().isPublisherConfirms();
+        if (properties.publisherConfirms() && !confirmsSupported) {
+            log.warn("orders.publisher-confirms is set but spring.rabbitmq.publisher-confirm-type is not correlated, "
+                    + "publishing without confirms");
+        }
+        this.confirms = properties.publisherConfirms() && confirmsSupported;
+        this.confirmLatency = Timer.builder("orders.events.publish.confirm")
+                .description("Time from publishing an order event until the broker confirmed it")
+                .register(meterRegistry);
     }
 
-    public void publish(OrderCreatedEvent event) {
-        this.send(properties.newOrdersQueue(), event);
-    }
-
-    public void publish(OrderDeliveredEvent event) {
-        this.send(properties.deliveredOrdersQueue(), event);
+    // sends the JSON stored in the outbox as it is. It was written by the same ObjectMapper that
+    // Jackson2JsonMessageConverter uses, so consumers get the same body and headers as with convertAndSend
+    public CompletableFuture<Boolean> publish(OrderEventType eventType, String eventId, String payload) {
+        return switch (eventType) {
+            case ORDER_CREATED ->
+                send(properties.newOrdersQueue(), toMessage(payload, OrderCreatedEvent.class), eventId);
+            case ORDER_DELIVERED ->
+                send(properties.deliveredOrdersQueue(), toMessage(payload, OrderDeliveredEvent.class), eventId);
+            case ORDER_CANCELLED ->
+                send(properties.cancelledOrdersQueue(), toMessage(payload, OrderCancelledEvent.class), eventId);
+            case ORDER_PROCESSING_FAILED ->
+                send(properties.errorOrdersQueue(), toMessage(payload, OrderErrorEvent.class), eventId);
+        };
     }
 
-    public void publish(OrderCancelledEvent event) {
-        this.send(properties.cancelledOrdersQueue(), event);
+    // everything the action publishes goes out on one dedicated channel, so the broker keeps it in that order
+    <T> T onDedicatedChannel(Supplier<T> action) {
+        return rabbitTemplate.invoke(operations -> action.get());
     }
 
-    public void publish(OrderErrorEvent event) {
-        this.send(properties.errorOrdersQueue(), event);
+    static Message toMessage(String payload, Class<?> eventType) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setContentEncoding(StandardCharsets.UTF_8.name());
+        messageProperties.setHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, eventType.getName());
+        return new Message(payload.getBytes(StandardCharsets.UTF_8), messageProperties);
     }
 
-    private void send(String routingKey, Object payload) {
-        rabbitTemplate.convertAndSend(properties.orderEventsExchange(), routingKey, payload);
+    private CompletableFuture<Boolean> send(String routingKey, Message message, String eventId) {
+        if (!confirms) {
+            rabbitTemplate.send(properties.orderEventsExchange(), routingKey, message);
+            return SENT;
+        }
+        CorrelationData correlationData = new CorrelationData(eventId);
+        long start = System.nanoTime();
+        rabbitTemplate.send(properties.orderEventsExchange(), routingKey, message, correlationData);
+        return correlationData.getFuture().thenApply(confirm -> {
+            confirmLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!confirm.isAck()) {
+                log.warn("Order event {} was not confirmed by the broker: {}", eventId, confirm.getReason());
+                return false;
+            }
+            // mandatory messages that couldn't be routed to a queue are returned and then acked
+            if (correlationData.getReturned() != null) {
+                log.warn("Order event {} was returned by the broker, no queue bound for {}", eventId, routingKey);
+                return false;
+            }
+            return true;
+        });
     }
 }
@@ -1,5 +1,35 @@
 package com.sivalabs.bookstore.orders.domain;
 
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-interface OrderEventRepository extends JpaRepository<OrderEventEntity, Long> {}
+interface OrderEventRepository extends JpaRepository<OrderEventEntity, Long> {
+
+    // claims the oldest unpublished events. The rows stay locked until the transaction ends and rows locked by
+    // another publisher are skipped instead of waited for, so several instances can drain the outbox side by side
+    @Query(
+            value =
+                    """
+            select * from order_events
+            order by created_at, id
+            limit :limit
+            for update skip locked
+            """,
+            nativeQuery = true)
+    List<OrderEventEntity> claimBatch(int limit);
+
+    // same for one publishing lane: the events of the orders whose number hashes to the lane, see
+    // OrderEventService.publishOrderEvents
+    @Query(
+            value =
+                    """
+            select * from order_events
+            where (hashtext(order_number) & 2147483647) % :lanes = :lane
+            order by created_at, id
+            limit :limit
+            for update skip locked
+            """,
+            nativeQuery = true)
+    List<OrderEventEntity> claimLaneBatch(int lanes, int lane, int limit);
+}
@@ -0,0 +1,4 @@
+package com.sivalabs.bookstore.orders.domain;
+
+// published when an event is written to the outbox, the listener only sees it once the transaction committed
+record OrderEventSaved(String eventId) {}
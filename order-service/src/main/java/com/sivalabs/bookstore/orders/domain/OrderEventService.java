@@ -2,123 +2,292 @@ package com.sivalabs.bookstore.orders.domain;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sivalabs.bookstore.orders.ApplicationProperties;
 import com.sivalabs.bookstore.orders.domain.models.OrderCancelledEvent;
 import com.sivalabs.bookstore.orders.domain.models.OrderCreatedEvent;
 import com.sivalabs.bookstore.orders.domain.models.OrderDeliveredEvent;
 import com.sivalabs.bookstore.orders.domain.models.OrderErrorEvent;
 import com.sivalabs.bookstore.orders.domain.models.OrderEventType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @Transactional
 public class OrderEventService {
     private static final Logger log = LoggerFactory.getLogger(OrderEventService.class);
+    private static final Duration BACKLOG_REFRESH_INTERVAL = Duration.ofSeconds(30);
 
     private final OrderEventRepository orderEventRepository;
     private final OrderEventPublisher orderEventPublisher;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Duration confirmTimeout;
+    private final int lanes;
+    private final AtomicLong[] laneBacklogs;
+    private volatile long backlogsRefreshedAt = System.nanoTime() - BACKLOG_REFRESH_INTERVAL.toNanos() - 1;
 
     OrderEventService(
             OrderEventRepository orderEventRepository,
             OrderEventPublisher orderEventPublisher,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher,
+            JdbcTemplate jdbcTemplate,
+            ApplicationProperties properties,
+            MeterRegistry meterRegistry) {
         this.orderEventRepository = orderEventRepository;
         this.orderEventPublisher = orderEventPublisher;
         this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = properties.publishOrderEventsBatchSize();
+        this.confirmTimeout = properties.publisherConfirmTimeout();
+        this.lanes = Math.max(1, properties.publishOrderEventsLanes());
+        this.laneBacklogs = new AtomicLong[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            laneBacklogs[lane] = new AtomicLong();
+            if (lanes > 1) {
+                Gauge.builder("orders.events.lane.backlog", laneBacklogs[lane], AtomicLong::get)
+                        .description("Order events waiting in the outbox, per publishing lane")
+                        .tag("lane", String.valueOf(lane))
+                        .register(meterRegistry);
+            }
+        }
     }
 
     void save(OrderCreatedEvent event) {
-        OrderEventEntity orderEvent = new OrderEventEntity();
-        orderEvent.setEventId(event.eventId());
-        orderEvent.setEventType(OrderEventType.ORDER_CREATED);
-        orderEvent.setOrderNumber(event.orderNumber());
-        orderEvent.setCreatedAt(event.createdAt());
-        orderEvent.setPayload(toJsonPayload(event));
-        this.orderEventRepository.save(orderEvent);
+        save(newEntity(OrderEventType.ORDER_CREATED, event.eventId(), event.orderNumber(), event.createdAt(), event));
     }
 
     void save(OrderDeliveredEvent event) {
-        OrderEventEntity orderEvent = new OrderEventEntity();
-        orderEvent.setEventId(event.eventId());
-        orderEvent.setEventType(OrderEventType.ORDER_DELIVERED);
-        orderEvent.setOrderNumber(event.orderNumber());
-        orderEvent.setCreatedAt(event.createdAt());
-        orderEvent.setPayload(toJsonPayload(event));
-        this.orderEventRepository.save(orderEvent);
+        save(newEntity(OrderEventType.ORDER_DELIVERED, event.eventId(), event.orderNumber(), event.createdAt(), event));
     }
 
     void save(OrderCancelledEvent event) {
-        OrderEventEntity orderEvent = new OrderEventEntity();
-        orderEvent.setEventId(event.eventId());
-        orderEvent.setEventType(OrderEventType.ORDER_CANCELLED);
-        orderEvent.setOrderNumber(event.orderNumber());
-        orderEvent.setCreatedAt(event.createdAt());
-        orderEvent.setPayload(toJsonPayload(event));
-        this.orderEventRepository.save(orderEvent);
+        save(newEntity(OrderEventType.ORDER_CANCELLED, event.eventId(), event.orderNumber(), event.createdAt(), event));
     }
 
     void save(OrderErrorEvent event) {
+        save(newEntity(
+                OrderEventType.ORDER_PROCESSING_FAILED,
+                event.eventId(),
+                event.orderNumber(),
+                event.createdAt(),
+                event));
+    }
+
+    // writes many events with one JDBC batch, used by the order processing job. Has to run inside a transaction
+    void saveAll(List<?> events) {
+        List<OrderEventEntity> entities = events.stream().map(this::toEntity).toList();
+        jdbcTemplate.batchUpdate(
+                """
+                insert into order_events (order_number, event_id, event_type, payload, created_at)
+                values (?, ?, ?, ?, ?)
+                """,
+                entities,
+                entities.size(),
+                (ps, event) -> {
+                    ps.setString(1, event.getOrderNumber());
+                    ps.setString(2, event.getEventId());
+                    ps.setString(3, event.getEventType().name());
+                    ps.setString(4, event.getPayload());
+                    ps.setObject(5, event.getCreatedAt());
+                });
+        if (!entities.isEmpty()) {
+            eventPublisher.publishEvent(new OrderEventSaved(entities.get(0).getEventId()));
+        }
+    }
+
+    private void save(OrderEventEntity orderEvent) {
+        this.orderEventRepository.save(orderEvent);
+        eventPublisher.publishEvent(new OrderEventSaved(orderEvent.getEventId()));
+    }
+
+    private OrderEventEntity toEntity(Object event) {
+        return switch (event) {
+            case OrderCreatedEvent e ->
+                newEntity(OrderEventType.ORDER_CREATED, e.eventId(), e.orderNumber(), e.createdAt(), e);
+            case OrderDeliveredEvent e ->
+                newEntity(OrderEventType.ORDER_DELIVERED, e.eventId(), e.orderNumber(), e.createdAt(), e);
+            case OrderCancelledEvent e ->
+                newEntity(OrderEventType.ORDER_CANCELLED, e.eventId(), e.orderNumber(), e.createdAt(), e);
+            case OrderErrorEvent e ->
+                newEntity(OrderEventType.ORDER_PROCESSING_FAILED, e.eventId(), e.orderNumber(), e.createdAt(), e);
+            default -> throw new IllegalArgumentException("Unsupported order event: " + event.getClass());
+        };
+    }
+
+    private OrderEventEntity newEntity(
+            OrderEventType eventType, String eventId, String orderNumber, LocalDateTime createdAt, Object event) {
         OrderEventEntity orderEvent = new OrderEventEntity();
-        orderEvent.setEventId(event.eventId());
-        orderEvent.setEventType(OrderEventType.ORDER_PROCESSING_FAILED);
-        orderEvent.setOrderNumber(event.orderNumber());
-        orderEvent.setCreatedAt(event.createdAt());
+        orderEvent.setEventId(eventId);
+        orderEvent.setEventType(eventType);
+        orderEvent.setOrderNumber(orderNumber);
+        orderEvent.setCreatedAt(createdAt);
         orderEvent.setPayload(toJsonPayload(event));
-        this.orderEventRepository.save(orderEvent);
+        return orderEvent;
     }
 
+    // Drains the outbox in batches, each one in its own transaction: claim the oldest events, publish them and delete
+    // them with one statement. Memory and transaction length are bounded by the batch size however big the backlog
+    // is, and a failure only rolls back the current batch.
+    // With orders.publish-order-events-lanes > 1 the events are split into lanes by hash of the order number and the
+    // lanes are drained concurrently, a single lane is lane 0 of 1. Ordering is only kept per order, which is all the
+    // consumers rely on: an order's events are always in the same lane, a lane is drained by one publisher at a time
+    // (across threads and instances, see tryLockLane) and publishes on one channel.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void publishOrderEvents() {
-        Sort sort = Sort.by("createdAt").ascending();
-        List<OrderEventEntity> events = orderEventRepository.findAll(sort);
-        log.info("Found {} Order Events to be published", events.size());
-        for (OrderEventEntity event : events) {
-            this.publishEvent(event);
-            orderEventRepository.delete(event);
+        long published = 0;
+        if (lanes == 1) {
+            published = drain(0);
+        } else {
+            if (System.nanoTime() - backlogsRefreshedAt > BACKLOG_REFRESH_INTERVAL.toNanos()) {
+                refreshLaneBacklogs();
+            }
+            List<Future<Long>> results;
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                results = IntStream.range(0, lanes)
+                        .mapToObj(lane -> executor.submit(() -> drain(lane)))
+                        .toList();
+            }
+            for (int lane = 0; lane < lanes; lane++) {
+                Future<Long> result = results.get(lane);
+                if (result.state() == Future.State.SUCCESS) {
+                    published += result.resultNow();
+                } else {
+                    log.error("Publishing Order Events of lane {} failed", lane, result.exceptionNow());
+                }
+            }
         }
+        log.info("Published {} Order Events", published);
+    }
+
+    private long drain(int lane) {
+        long published = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> publishBatch(lane));
+            published += batch;
+        } while (batch == batchSize);
+        return published;
     }
 
-    private void publishEvent(OrderEventEntity event) {
-        OrderEventType eventType = event.getEventType();
-        switch (eventType) {
-            case ORDER_CREATED:
-                OrderCreatedEvent orderCreatedEvent = fromJsonPayload(event.getPayload(), OrderCreatedEvent.class);
-                orderEventPublisher.publish(orderCreatedEvent);
-                break;
-            case ORDER_DELIVERED:
-                OrderDeliveredEvent orderDeliveredEvent =
-                        fromJsonPayload(event.getPayload(), OrderDeliveredEvent.class);
-                orderEventPublisher.publish(orderDeliveredEvent);
-                break;
-            case ORDER_CANCELLED:
-                OrderCancelledEvent orderCancelledEvent =
-                        fromJsonPayload(event.getPayload(), OrderCancelledEvent.class);
-                orderEventPublisher.publish(orderCancelledEvent);
-                break;
-            case ORDER_PROCESSING_FAILED:
-                OrderErrorEvent orderErrorEvent = fromJsonPayload(event.getPayload(), OrderErrorEvent.class);
-                orderEventPublisher.publish(orderErrorEvent);
-                break;
-            default:
-                log.warn("Unsupported OrderEventType: {}", eventType);
+    // returns the number of events published and deleted, less than the batch size ends the drain loop
+    private int publishBatch(int lane) {
+        if (!tryLockLane(lane)) {
+            return 0;
+        }
+        List<OrderEventEntity> events = lanes == 1
+                ? orderEventRepository.claimBatch(batchSize)
+                : orderEventRepository.claimLaneBatch(lanes, lane, batchSize);
+        // everything is sent first and the confirms are collected afterwards, so the whole batch is in flight at once
+        List<CompletableFuture<Boolean>> confirms = orderEventPublisher.onDedicatedChannel(() -> {
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>(events.size());
+            for (OrderEventEntity event : events) {
+                futures.add(this.publishEvent(event));
+            }
+            return futures;
+        });
+        long deadline = System.nanoTime() + confirmTimeout.toNanos();
+        List<Long> confirmedIds = new ArrayList<>(events.size());
+        // once an event of an order is unconfirmed, the order's later events of the batch stay in the outbox too:
+        // they are published again after it and the consumers still see the order's last copies in order
+        Set<String> unconfirmedOrders = new HashSet<>();
+        for (int i = 0; i < events.size(); i++) {
+            OrderEventEntity event = events.get(i);
+            if (!unconfirmedOrders.contains(event.getOrderNumber()) && isConfirmed(confirms.get(i), deadline)) {
+                confirmedIds.add(event.getId());
+            } else {
+                unconfirmedOrders.add(event.getOrderNumber());
+            }
+        }
+        // unconfirmed events stay in the outbox and are published again by a later run
+        if (!confirmedIds.isEmpty()) {
+            orderEventRepository.deleteAllByIdInBatch(confirmedIds);
         }
+        if (confirmedIds.size() < events.size()) {
+            log.warn(
+                    "{} of {} Order Events were not confirmed by the broker",
+                    events.size() - confirmedIds.size(),
+                    events.size());
+        }
+        laneBacklogs[lane].updateAndGet(backlog -> Math.max(0, backlog - confirmedIds.size()));
+        return confirmedIds.size();
     }
 
-    private String toJsonPayload(Object object) {
+    // a lane is drained by one publisher at a time: a second publisher (the scheduled job, the immediate publisher or
+    // another instance) would otherwise claim the next events of the same orders and publish them concurrently. The
+    // publisher that doesn't get the lock stops, the one holding it goes on until the lane is empty
+    private boolean tryLockLane(int lane) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select pg_try_advisory_xact_lock(hashtext('order_events'), ?)", Boolean.class, lane));
+    }
+
+    // The lane backlog gauges are counted down while the lanes drain. The full count scans the outbox, so it runs at
+    // most every BACKLOG_REFRESH_INTERVAL and not on every commit-triggered drain
+    private void refreshLaneBacklogs() {
+        backlogsRefreshedAt = System.nanoTime();
+        long[] backlogs = new long[lanes];
+        jdbcTemplate.query(
+                """
+                select (hashtext(order_number) & 2147483647) % ? as lane, count(*) from order_events group by 1
+                """,
+                rs -> {
+                    backlogs[rs.getInt(1)] = rs.getLong(2);
+                },
+                lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            laneBacklogs[lane].set(backlogs[lane]);
+        }
+    }
+
+    private static boolean isConfirmed(CompletableFuture<Boolean> confirm, long deadline) {
         try {
-            return objectMapper.writeValueAsString(object);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
+            return confirm.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
         }
     }
 
-    private <T> T fromJsonPayload(String json, Class<T> type) {
+    // the stored payload goes out as it is, publishing doesn't deserialize or serialize anything
+    private CompletableFuture<Boolean> publishEvent(OrderEventEntity event) {
+        return orderEventPublisher.publish(event.getEventType(), event.getEventId(), event.getPayload());
+    }
+
+    private String toJsonPayload(Object object) {
         try {
-            return objectMapper.readValue(json, type);
+            return objectMapper.writeValueAsString(object);
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,7 @@
+package com.sivalabs.bookstore.orders.domain;
+
+import com.sivalabs.bookstore.orders.domain.models.OrderStatus;
+import java.time.LocalDateTime;
+
+// an order history entry plus the (createdAt, id) key the page cursor is made of
+public record OrderHistoryRow(Long id, String orderNumber, OrderStatus status, LocalDateTime createdAt) {}
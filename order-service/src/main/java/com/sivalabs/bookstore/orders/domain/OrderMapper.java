@@ -6,14 +6,13 @@ import com.sivalabs.bookstore.orders.domain.models.OrderItem;
 import com.sivalabs.bookstore.orders.domain.models.OrderStatus;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 class OrderMapper {
 
-    static OrderEntity convertToEntity(CreateOrderRequest request) {
+    static OrderEntity convertToEntity(CreateOrderRequest request, String orderNumber) {
         OrderEntity newOrder = new OrderEntity();
-        newOrder.setOrderNumber(UUID.randomUUID().toString());
+        newOrder.setOrderNumber(orderNumber);
         newOrder.setStatus(OrderStatus.NEW);
         newOrder.setCustomer(request.customer());
         newOrder.setDeliveryAddress(request.deliveryAddress());
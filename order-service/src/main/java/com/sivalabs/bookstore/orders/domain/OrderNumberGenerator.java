@@ -0,0 +1,7 @@
+package com.sivalabs.bookstore.orders.domain;
+
+// Assigns the order number of a new order. orders.order-number-generator picks the implementation: time-ordered
+// (default, UUIDv7) or random (UUIDv4). Both produce the usual 36 character UUID text, existing numbers stay valid
+interface OrderNumberGenerator {
+    String next();
+}
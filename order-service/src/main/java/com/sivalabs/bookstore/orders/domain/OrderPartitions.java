@@ -0,0 +1,27 @@
+package com.sivalabs.bookstore.orders.domain;
+
+import java.util.List;
+
+// The slice of the NEW-order backlog one OrderService.processNewOrders run works on. An order belongs to partition
+// (hashtext(order_number) & 2147483647) % count()
+public interface OrderPartitions {
+
+    // the whole backlog as one partition, for a single (ShedLock-guarded) runner
+    OrderPartitions ALL = new OrderPartitions() {
+        @Override
+        public int count() {
+            return 1;
+        }
+
+        @Override
+        public List<Integer> leased() {
+            return List.of(0);
+        }
+    };
+
+    int count();
+
+    // the partitions this instance may process right now. Called again inside every chunk transaction, an
+    // implementation backed by leases keeps them locked until that transaction ends
+    List<Integer> leased();
+}
@@ -1,32 +1,36 @@
 package com.sivalabs.bookstore.orders.domain;
 
 import com.sivalabs.bookstore.orders.domain.models.OrderStatus;
-import com.sivalabs.bookstore.orders.domain.models.OrderSummary;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
 interface OrderRepository extends JpaRepository<OrderEntity, Long> {
-    List<OrderEntity> findByStatus(OrderStatus status);
-
     Optional<OrderEntity> findByOrderNumber(String orderNumber);
 
-    default void updateOrderStatus(String orderNumber, OrderStatus status) {
-        OrderEntity order = this.findByOrderNumber(orderNumber).orElseThrow();
-        order.setStatus(status);
-        this.save(order);
-    }
+    // the orders of one processing chunk with their items in one query
+    @Query("select distinct o from OrderEntity o left join fetch o.items where o.id in :ids order by o.id")
+    List<OrderEntity> findWithItemsByIdIn(Collection<Long> ids);
 
-    // Below I have used new com.sivalabs.bookstore.orders.domain.models.OrderSummary this to get only two fields from
-    // DB
+    // one page of a user's order history, newest first, after the (createdAt, id) cursor. The redundant
+    // "createdAt <= :createdAt" lets Postgres start the scan of orders_username_created_at_id_idx at the cursor, the
+    // rest of the condition only skips the ties
     @Query(
             """
-        select new com.sivalabs.bookstore.orders.domain.models.OrderSummary(o.orderNumber, o.status)
+        select new com.sivalabs.bookstore.orders.domain.OrderHistoryRow(o.id, o.orderNumber, o.status, o.createdAt)
         from OrderEntity o
         where o.userName = :userName
+            and o.status in :statuses
+            and o.createdAt <= :createdAt
+            and (o.createdAt < :createdAt or o.id < :id)
+        order by o.createdAt desc, o.id desc
         """)
-    List<OrderSummary> findByUserName(String userName);
+    List<OrderHistoryRow> findOrderHistory(
+            String userName, Collection<OrderStatus> statuses, LocalDateTime createdAt, long id, Limit limit);
 
     // I have used below to resolve the n+1 query problem as if i don't use below there will be two queries called
     // Hibernate: select
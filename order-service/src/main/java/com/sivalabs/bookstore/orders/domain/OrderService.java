@@ -1,34 +1,74 @@
 package com.sivalabs.bookstore.orders.domain;
 
+import com.sivalabs.bookstore.orders.ApplicationProperties;
 import com.sivalabs.bookstore.orders.domain.models.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @Transactional
 public class OrderService {
     private static final Logger log = LoggerFactory.getLogger(OrderService.class);
     private static final List<String> DELIVERY_ALLOWED_COUNTRIES = List.of("INDIA", "USA", "GERMANY", "UK");
+    // cursor of the first page, sorts after every real order
+    private static final OrderHistoryRow FIRST_PAGE =
+            new OrderHistoryRow(Long.MAX_VALUE, null, null, LocalDateTime.of(9999, 12, 31, 0, 0));
 
     private final OrderRepository orderRepository;
     private final OrderValidator orderValidator;
     private final OrderEventService orderEventService;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final OrderDetailCache orderDetailCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int pageSize;
+    private final int maxPageSize;
 
-    OrderService(OrderRepository orderRepository, OrderValidator orderValidator, OrderEventService orderEventService) {
+    OrderService(
+            OrderRepository orderRepository,
+            OrderValidator orderValidator,
+            OrderEventService orderEventService,
+            OrderNumberGenerator orderNumberGenerator,
+            OrderDetailCache orderDetailCache,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ApplicationProperties properties) {
         this.orderRepository = orderRepository;
         this.orderValidator = orderValidator;
         this.orderEventService = orderEventService;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.orderDetailCache = orderDetailCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = properties.processNewOrdersChunkSize();
+        this.pageSize = properties.ordersPageSize();
+        this.maxPageSize = properties.ordersMaxPageSize();
     }
 
     public CreateOrderResponse createOrder(String userName, CreateOrderRequest request) {
 
         //        try {
         orderValidator.validate(request);
-        OrderEntity newOrder = OrderMapper.convertToEntity(request);
+        OrderEntity newOrder = OrderMapper.convertToEntity(request, orderNumberGenerator.next());
         newOrder.setUserName(userName);
         OrderEntity savedOrder = this.orderRepository.save(newOrder);
         log.info("Created Order with orderNumber={}", savedOrder.getOrderNumber());
@@ -43,41 +83,165 @@ public class OrderService {
         //        return null;
     }
 
-    public List<OrderSummary> findOrders(String userName) {
-        return orderRepository.findByUserName(userName);
+    // Newest first, pageSize orders per call. The cursor is the (createdAt, id) of the last order of the previous page,
+    // so every page is one index range scan however far back the user pages
+    public OrderSummaryPage findOrders(String userName, OrderStatus status, String cursor, Integer size) {
+        int pageSize = size == null ? this.pageSize : Math.min(Math.max(size, 1), maxPageSize);
+        Set<OrderStatus> statuses = status == null ? EnumSet.allOf(OrderStatus.class) : EnumSet.of(status);
+        OrderHistoryRow after = cursor == null ? FIRST_PAGE : decodeCursor(cursor);
+        // one extra row tells whether there is a next page
+        List<OrderHistoryRow> rows = orderRepository.findOrderHistory(
+                userName, statuses, after.createdAt(), after.id(), Limit.of(pageSize + 1));
+        boolean hasNext = rows.size() > pageSize;
+        List<OrderHistoryRow> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+        return new OrderSummaryPage(
+                pageRows.stream()
+                        .map(row -> new OrderSummary(row.orderNumber(), row.status()))
+                        .toList(),
+                hasNext ? encodeCursor(pageRows.get(pageRows.size() - 1)) : null);
     }
 
+    // no transaction of its own: a cache hit doesn't need a connection, a miss runs the repository query in its own
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<OrderDTO> findUserOrder(String userName, String orderNumber) {
-        return orderRepository
-                .findByUserNameAndOrderNumber(userName, orderNumber)
-                .map(OrderMapper::convertToDTO);
+        return orderDetailCache.get(userName, orderNumber);
     }
 
+    // Works through the NEW orders in chunks of orders.process-new-orders-chunk-size, each chunk in its own
+    // transaction: one query for the orders, one UPDATE per target status and one JDBC batch for the events. A chunk
+    // that fails is rolled back on its own, its orders stay NEW for the next run and the remaining chunks go on.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void processNewOrders() {
-        List<OrderEntity> orders = orderRepository.findByStatus(OrderStatus.NEW);
-        log.info("Found {} new orders to process", orders.size());
-        for (OrderEntity order : orders) {
-            this.process(order);
+        processNewOrders(OrderPartitions.ALL);
+    }
+
+    // Same, restricted to the partitions leased by this instance. The leases are re-checked (and locked) inside every
+    // chunk transaction, when one was handed over to another instance in the meantime the run stops
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void processNewOrders(OrderPartitions partitions) {
+        long start = System.nanoTime();
+        long processed = 0;
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            List<Integer> leased = partitions.leased();
+            if (leased.isEmpty()) {
+                break;
+            }
+            ids = findNewOrderIds(partitions.count(), leased, afterId);
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Long> chunk = ids;
+            try {
+                List<String> claimed = transactionTemplate.execute(status -> {
+                    if (!partitions.leased().containsAll(leased)) {
+                        return null;
+                    }
+                    return processChunk(chunk);
+                });
+                if (claimed == null) {
+                    log.info("Order partition leases changed, stopping after {} new orders", processed);
+                    break;
+                }
+                orderDetailCache.evict(claimed);
+                processed += claimed.size();
+            } catch (RuntimeException e) {
+                log.error("Failed to process the chunk of {} new orders after id {}", chunk.size(), afterId, e);
+            }
+            afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == chunkSize);
+
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Processed {} new orders in {} ms ({} orders/s)", processed, millis, processed * 1000 / millis);
+    }
+
+    // keyset chunk of the NEW-order backlog in the given partitions, see OrderPartitions
+    private List<Long> findNewOrderIds(int partitionCount, List<Integer> partitions, long afterId) {
+        return jdbcTemplate.query(
+                """
+                select id from orders
+                where status = 'NEW' and id > ? and (hashtext(order_number) & 2147483647) % ? = any(?)
+                order by id
+                limit ?
+                """,
+                ps -> {
+                    ps.setLong(1, afterId);
+                    ps.setInt(2, partitionCount);
+                    ps.setArray(3, ps.getConnection().createArrayOf("int4", partitions.toArray()));
+                    ps.setInt(4, chunkSize);
+                },
+                (rs, rowNum) -> rs.getLong(1));
+    }
+
+    // The ids were picked outside the transaction. Only the orders that are still NEW and not locked by another
+    // worker (a lease that moved away and back, an old single-runner node during a rolling deploy) are processed,
+    // they stay locked until the chunk commits. Returns the numbers of the orders processed
+    private List<String> processChunk(List<Long> ids) {
+        List<Long> claimed = jdbcTemplate.query(
+                "select id from orders where id = any(?) and status = 'NEW' order by id for update skip locked",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("int8", ids.toArray())),
+                (rs, rowNum) -> rs.getLong(1));
+        if (claimed.isEmpty()) {
+            return List.of();
+        }
+        Map<OrderStatus, List<String>> orderNumbersByStatus = new EnumMap<>(OrderStatus.class);
+        List<Object> events = new ArrayList<>(claimed.size());
+        List<String> orderNumbers = new ArrayList<>(claimed.size());
+        for (OrderEntity order : orderRepository.findWithItemsByIdIn(claimed)) {
+            OrderStatus status;
+            try {
+                if (canBeDelivered(order)) {
+                    log.info("OrderNumber: {} can be delivered", order.getOrderNumber());
+                    status = OrderStatus.DELIVERED;
+                    events.add(OrderEventMapper.buildOrderDeliveredEvent(order));
+                } else {
+                    log.info("OrderNumber: {} can not be delivered", order.getOrderNumber());
+                    status = OrderStatus.CANCELLED;
+                    events.add(OrderEventMapper.buildOrderCancelledEvent(order, "Can't deliver to the location"));
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to process Order with orderNumber: {}", order.getOrderNumber(), e);
+                status = OrderStatus.ERROR;
+                events.add(OrderEventMapper.buildOrderErrorEvent(order, e.getMessage()));
+            }
+            orderNumbersByStatus
+                    .computeIfAbsent(status, key -> new ArrayList<>())
+                    .add(order.getOrderNumber());
+            orderNumbers.add(order.getOrderNumber());
         }
+        orderNumbersByStatus.forEach(this::updateStatus);
+        orderEventService.saveAll(events);
+        return orderNumbers;
+    }
+
+    // the order numbers go in as one array parameter, so the statement is the same whatever the chunk size
+    private void updateStatus(OrderStatus status, List<String> orderNumbers) {
+        jdbcTemplate.update(
+                "update orders set status = ?, updated_at = now() where order_number = any(?) and status = 'NEW'",
+                ps -> {
+                    ps.setString(1, status.name());
+                    ps.setArray(2, ps.getConnection().createArrayOf("text", orderNumbers.toArray()));
+                });
+    }
+
+    // opaque to clients: base64url of "<createdAt>,<id>"
+    private static String encodeCursor(OrderHistoryRow row) {
+        String key = row.createdAt() + "," + row.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
     }
 
-    private void process(OrderEntity order) {
+    private static OrderHistoryRow decodeCursor(String cursor) {
         try {
-            if (canBeDelivered(order)) {
-                log.info("OrderNumber: {} can be delivered", order.getOrderNumber());
-                orderRepository.updateOrderStatus(order.getOrderNumber(), OrderStatus.DELIVERED);
-                orderEventService.save(OrderEventMapper.buildOrderDeliveredEvent(order));
-
-            } else {
-                log.info("OrderNumber: {} can not be delivered", order.getOrderNumber());
-                orderRepository.updateOrderStatus(order.getOrderNumber(), OrderStatus.CANCELLED);
-                orderEventService.save(
-                        OrderEventMapper.buildOrderCancelledEvent(order, "Can't deliver to the location"));
-            }
-        } catch (RuntimeException e) {
-            log.error("Failed to process Order with orderNumber: {}", order.getOrderNumber(), e);
-            orderRepository.updateOrderStatus(order.getOrderNumber(), OrderStatus.ERROR);
-            orderEventService.save(OrderEventMapper.buildOrderErrorEvent(order, e.getMessage()));
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf(',');
+            return new OrderHistoryRow(
+                    Long.parseLong(key.substring(separator + 1)),
+                    null,
+                    null,
+                    LocalDateTime.parse(key.substring(0, separator)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException(cursor);
         }
     }
 
@@ -1,10 +1,23 @@
 package com.sivalabs.bookstore.orders.domain;
 
+import com.sivalabs.bookstore.orders.ApplicationProperties;
 import com.sivalabs.bookstore.orders.clients.Product;
-import com.sivalabs.bookstore.orders.clients.ProductServiceClient;
+import com.sivalabs.bookstore.orders.clients.ProductCache;
 import com.sivalabs.bookstore.orders.domain.models.CreateOrderRequest;
 import com.sivalabs.bookstore.orders.domain.models.OrderItem;
-import java.util.Set;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -13,24 +26,67 @@ import org.springframework.stereotype.Component;
 class OrderValidator {
     private static final Logger log = LoggerFactory.getLogger(OrderValidator.class);
 
-    private final ProductServiceClient client;
+    private final ProductCache productCache;
+    private final Duration timeout;
 
-    OrderValidator(ProductServiceClient client) {
-        this.client = client;
+    OrderValidator(ProductCache productCache, ApplicationProperties properties) {
+        this.productCache = productCache;
+        this.timeout = properties.orderValidationTimeout();
     }
 
+    // The products are looked up concurrently, one virtual thread per distinct code, so an order waits for its
+    // slowest lookup instead of the sum of all of them. Results are checked as they arrive: the first invalid item
+    // (or the overall deadline) fails the order and interrupts the lookups still running. Unknown codes and price
+    // mismatches are InvalidOrderException, a lookup that timed out or failed is CatalogUnavailableException.
     void validate(CreateOrderRequest request) {
-        Set<OrderItem> items = request.items();
-        for (OrderItem item : items) {
-            Product product = client.getProductByCode(item.code())
-                    .orElseThrow(() -> new InvalidOrderException("Invalid Product code:" + item.code()));
-            if (item.price().compareTo(product.price()) != 0) {
-                log.error(
-                        "Product price not matching. Actual price:{}, received price:{}",
-                        product.price(),
-                        item.price());
-                throw new InvalidOrderException("Product price not matching");
+        Map<String, List<OrderItem>> itemsByCode = request.items().stream()
+                .collect(Collectors.groupingBy(OrderItem::code, LinkedHashMap::new, Collectors.toList()));
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            CompletionService<Lookup> lookups = new ExecutorCompletionService<>(executor);
+            for (String code : itemsByCode.keySet()) {
+                lookups.submit(() -> new Lookup(code, productCache.getProductByCode(code)));
+            }
+            for (int i = 0; i < itemsByCode.size(); i++) {
+                Lookup lookup = next(lookups, deadline);
+                Product product = lookup.product()
+                        .orElseThrow(() -> new InvalidOrderException("Invalid Product code:" + lookup.code()));
+                for (OrderItem item : itemsByCode.get(lookup.code())) {
+                    if (item.price().compareTo(product.price()) != 0) {
+                        log.error(
+                                "Product price not matching. Actual price:{}, received price:{}",
+                                product.price(),
+                                item.price());
+                        throw new InvalidOrderException("Product price not matching");
+                    }
+                }
             }
+        } finally {
+            // no await: once the order is decided nobody is interested in the remaining lookups
+            executor.shutdownNow();
         }
     }
+
+    private Lookup next(CompletionService<Lookup> lookups, long deadline) {
+        try {
+            Future<Lookup> done = lookups.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (done == null) {
+                log.error("Product validation did not complete within {}", timeout);
+                throw new CatalogUnavailableException("Product validation timed out");
+            }
+            return done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CatalogUnavailableException("Product validation interrupted");
+        } catch (ExecutionException e) {
+            // the cache already fell back to a stale product where it had one
+            log.error("Product lookup failed: {}", e.getCause().getMessage());
+            throw new CatalogUnavailableException(
+                    "Product validation failed, catalog-service unavailable", e.getCause());
+        }
+    }
+
+    private record Lookup(String code, Optional<Product> product) {}
 }
@@ -0,0 +1,16 @@
+package com.sivalabs.bookstore.orders.domain;
+
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// the original scheme: random UUIDv4 from SecureRandom. Inserts land anywhere in the order_number index
+@Component
+@ConditionalOnProperty(name = "orders.order-number-generator", havingValue = "random")
+class RandomOrderNumberGenerator implements OrderNumberGenerator {
+
+    @Override
+    public String next() {
+        return UUID.randomUUID().toString();
+    }
+}
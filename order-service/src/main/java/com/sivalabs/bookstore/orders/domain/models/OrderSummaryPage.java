@@ -0,0 +1,7 @@
+package com.sivalabs.bookstore.orders.domain.models;
+
+import java.util.List;
+
+// one page of a user's order history, newest first. nextCursor is passed back as ?cursor= for the next (older) page,
+// null on the last page
+public record OrderSummaryPage(List<OrderSummary> orders, String nextCursor) {}
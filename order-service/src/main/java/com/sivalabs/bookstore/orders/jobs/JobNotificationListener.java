@@ -0,0 +1,158 @@
+package com.sivalabs.bookstore.orders.jobs;
+
+import com.sivalabs.bookstore.orders.ApplicationProperties;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+// Notification-driven job runs. The triggers of the V5 migration NOTIFY new_orders / order_events on commit, this
+// listener holds its own connection (outside the pool, it is busy for the lifetime of the application) and wakes the
+// matching job right away. Without notifications both jobs still run every idle-poll-interval, and once more after
+// (re)connecting, for anything committed while nobody was listening. Their cron schedules keep running as a backstop
+// for a listener that is stuck or disconnected. The jobs keep their ShedLock locks, so only one
+// instance runs a job at a time, except for partitioned new-order processing (see PartitionedOrderProcessingJob)
+@Component
+@ConditionalOnProperty(name = "orders.job-notifications.enabled", havingValue = "true")
+class JobNotificationListener implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(JobNotificationListener.class);
+
+    private static final String NEW_ORDERS_CHANNEL = "new_orders";
+    private static final String ORDER_EVENTS_CHANNEL = "order_events";
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(5);
+
+    private final JdbcConnectionDetails connectionDetails;
+    private final Duration idlePollInterval;
+    private final Wakeup newOrders;
+    private final Wakeup orderEvents;
+    private volatile boolean running;
+    private volatile Connection connection;
+
+    JobNotificationListener(
+            JdbcConnectionDetails connectionDetails,
+            ApplicationProperties properties,
+            NewOrdersJob newOrdersJob,
+            OrderEventsPublishingJob orderEventsPublishingJob) {
+        this.connectionDetails = connectionDetails;
+        this.idlePollInterval = properties.jobNotifications().idlePollInterval();
+        this.newOrders = new Wakeup("process-new-orders", newOrdersJob::processNewOrders);
+        this.orderEvents = new Wakeup("publish-order-events", orderEventsPublishingJob::publishOrderEvents);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread.ofPlatform().name("job-notification-listener").daemon().start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        // closing the connection ends the blocking wait for notifications
+        Connection current = connection;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException e) {
+                log.debug("Closing the job notification connection failed: {}", e.getMessage());
+            }
+        }
+        newOrders.shutdown();
+        orderEvents.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    connectionDetails.getJdbcUrl(), connectionDetails.getUsername(), connectionDetails.getPassword())) {
+                this.connection = connection;
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + NEW_ORDERS_CHANNEL);
+                    statement.execute("LISTEN " + ORDER_EVENTS_CHANNEL);
+                }
+                log.info("Listening for job notifications on {} and {}", NEW_ORDERS_CHANNEL, ORDER_EVENTS_CHANNEL);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                wakeAll();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) idlePollInterval.toMillis());
+                    if (notifications == null || notifications.length == 0) {
+                        wakeAll();
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        switch (notification.getName()) {
+                            case NEW_ORDERS_CHANNEL -> newOrders.wake();
+                            case ORDER_EVENTS_CHANNEL -> orderEvents.wake();
+                            default -> log.debug("Ignoring notification on {}", notification.getName());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Job notification connection failed, reconnecting in {}: {}", RECONNECT_DELAY, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void wakeAll() {
+        newOrders.wake();
+        orderEvents.wake();
+    }
+
+    // runs a job on its own thread, a wake-up that arrives while a run is already queued is folded into it
+    private static final class Wakeup {
+        private final Runnable job;
+        private final ExecutorService executor;
+        private final AtomicBoolean requested = new AtomicBoolean();
+
+        Wakeup(String name, Runnable job) {
+            this.job = job;
+            this.executor = Executors.newSingleThreadExecutor(
+                    Thread.ofPlatform().name(name).factory());
+        }
+
+        void wake() {
+            if (requested.compareAndSet(false, true)) {
+                executor.execute(this::run);
+            }
+        }
+
+        private void run() {
+            requested.set(false);
+            try {
+                job.run();
+            } catch (Exception e) {
+                log.error("Job run failed", e);
+            }
+        }
+
+        void shutdown() {
+            executor.shutdown();
+        }
+    }
+}
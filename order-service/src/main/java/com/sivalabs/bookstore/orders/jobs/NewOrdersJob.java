@@ -0,0 +1,7 @@
+package com.sivalabs.bookstore.orders.jobs;
+
+// the bean that processes the NEW-order backlog: OrderProcessingJob (one instance at a time, ShedLock) or
+// PartitionedOrderProcessingJob (every instance, on its leased partitions)
+interface NewOrdersJob {
+    void processNewOrders();
+}
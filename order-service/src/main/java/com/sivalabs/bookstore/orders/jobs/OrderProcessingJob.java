@@ -6,11 +6,15 @@ import net.javacrumbs.shedlock.core.LockAssert;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+// single runner: the ShedLock lock lets only one instance process the backlog at a time. Replaced by
+// PartitionedOrderProcessingJob with orders.processing-partitions.enabled=true
 @Component
-class OrderProcessingJob {
+@ConditionalOnProperty(name = "orders.processing-partitions.enabled", havingValue = "false", matchIfMissing = true)
+class OrderProcessingJob implements NewOrdersJob {
     private static final Logger log = LoggerFactory.getLogger(OrderProcessingJob.class);
 
     private final OrderService orderService;
@@ -19,6 +23,7 @@ class OrderProcessingJob {
         this.orderService = orderService;
     }
 
+    @Override
     @Scheduled(cron = "${orders.new-orders-job-cron}")
     @SchedulerLock(name = "processNewOrders")
     public void processNewOrders() {
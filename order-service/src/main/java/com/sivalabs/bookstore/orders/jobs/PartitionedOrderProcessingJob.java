@@ -0,0 +1,218 @@
+package com.sivalabs.bookstore.orders.jobs;
+
+import com.sivalabs.bookstore.orders.ApplicationProperties;
+import com.sivalabs.bookstore.orders.domain.OrderPartitions;
+import com.sivalabs.bookstore.orders.domain.OrderService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Multi-node processing of the NEW-order backlog. The backlog is split into orders.processing-partitions.count
+// partitions by hash of the order number (see OrderPartitions), every instance processes the partitions it holds a
+// lease on. Each instance heartbeats into order_processing_nodes, instances that stop heartbeating are dropped, and
+// partition p goes to the live instance at index p % liveInstances (ordered by node id). On every heartbeat an
+// instance hands back the leases that now belong to someone else and takes its own share once it is free or expired.
+// The processing chunks lock their leases (select ... for share), so a lease is only handed over between two chunks.
+// Gaining a lease starts a processing run right away
+@Component
+@ConditionalOnProperty(name = "orders.processing-partitions.enabled", havingValue = "true")
+class PartitionedOrderProcessingJob implements NewOrdersJob, OrderPartitions, SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(PartitionedOrderProcessingJob.class);
+
+    private final OrderService orderService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final int partitionCount;
+    private final Duration heartbeatInterval;
+    private final double leaseTtlSeconds;
+    private final AtomicBoolean processing = new AtomicBoolean();
+    private volatile List<Integer> assigned = List.of();
+    private volatile ScheduledExecutorService heartbeats;
+
+    PartitionedOrderProcessingJob(
+            OrderService orderService,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ApplicationProperties properties,
+            MeterRegistry meterRegistry) {
+        ApplicationProperties.ProcessingPartitions partitions = properties.processingPartitions();
+        this.orderService = orderService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.partitionCount = partitions.count();
+        this.heartbeatInterval = partitions.heartbeatInterval();
+        this.leaseTtlSeconds = partitions.leaseTtl().toMillis() / 1000.0;
+        Gauge.builder("orders.processing.partitions.leased", this, job -> job.assigned.size())
+                .description("NEW-order partitions leased by this instance")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Scheduled(cron = "${orders.new-orders-job-cron}")
+    public void processNewOrders() {
+        // the scheduler and the notification listener may both call in, one run per instance at a time
+        if (!processing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            log.info("Processing new orders of partitions {} at {}", assigned, Instant.now());
+            orderService.processNewOrders(this);
+        } finally {
+            processing.set(false);
+        }
+    }
+
+    @Override
+    public int count() {
+        return partitionCount;
+    }
+
+    @Override
+    public List<Integer> leased() {
+        return jdbcTemplate.queryForList(
+                """
+                select partition_no from order_processing_partitions
+                where owner = ? and lease_until > now()
+                order by partition_no
+                for share
+                """,
+                Integer.class,
+                nodeId);
+    }
+
+    @Override
+    public void start() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(
+                    "insert into order_processing_partitions (partition_no) select generate_series(0, ? - 1) "
+                            + "on conflict (partition_no) do nothing",
+                    partitionCount);
+            jdbcTemplate.update("delete from order_processing_partitions where partition_no >= ?", partitionCount);
+        });
+        heartbeats = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("order-partitions-heartbeat").daemon().factory());
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Processing new orders in {} partitions as node {}", partitionCount, nodeId);
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = heartbeats;
+        if (current == null) {
+            return;
+        }
+        heartbeats = null;
+        current.shutdownNow();
+        // leave right away instead of letting the others wait for the lease ttl
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(
+                        "update order_processing_partitions set owner = null, lease_until = null where owner = ?",
+                        nodeId);
+                jdbcTemplate.update("delete from order_processing_nodes where node_id = ?", nodeId);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Releasing the order partitions of {} failed, they expire after the lease ttl", nodeId, e);
+        }
+        assigned = List.of();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return heartbeats != null;
+    }
+
+    private void heartbeat() {
+        try {
+            List<Integer> leases = transactionTemplate.execute(status -> rebalance());
+            if (!leases.equals(assigned)) {
+                log.info("Node {} now leases order partitions {}", nodeId, leases);
+                boolean gained = !assigned.containsAll(leases);
+                assigned = leases;
+                // a lease that changed hands (released by a leaving instance, expired) holds a backlog nobody
+                // processed meanwhile, take it on right away instead of waiting for the next scheduled run. Off the
+                // heartbeat thread, the leases have to be renewed while the backlog is processed
+                if (gained) {
+                    Thread.ofVirtual().name("process-new-orders-rebalanced").start(this::processNewOrders);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Order partition heartbeat of {} failed: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private List<Integer> rebalance() {
+        // one rebalance at a time across the instances, concurrent ones would update the same leases in any order
+        jdbcTemplate.queryForObject(
+                "select pg_advisory_xact_lock(hashtext('order_processing_partitions'))", Object.class);
+        jdbcTemplate.update(
+                """
+                insert into order_processing_nodes (node_id, heartbeat_at) values (?, now())
+                on conflict (node_id) do update set heartbeat_at = now()
+                """,
+                nodeId);
+        jdbcTemplate.update(
+                "delete from order_processing_nodes where heartbeat_at < now() - make_interval(secs => ?)",
+                leaseTtlSeconds);
+        List<String> nodes =
+                jdbcTemplate.queryForList("select node_id from order_processing_nodes order by node_id", String.class);
+        int index = nodes.indexOf(nodeId);
+        Object[] share = IntStream.range(0, partitionCount)
+                .filter(partition -> partition % nodes.size() == index)
+                .boxed()
+                .toArray();
+        jdbcTemplate.update(
+                """
+                update order_processing_partitions set owner = null, lease_until = null
+                where owner = ? and partition_no <> all(?)
+                """,
+                ps -> {
+                    ps.setString(1, nodeId);
+                    ps.setArray(2, ps.getConnection().createArrayOf("int4", share));
+                });
+        jdbcTemplate.update(
+                """
+                update order_processing_partitions set owner = ?, lease_until = now() + make_interval(secs => ?)
+                where partition_no = any(?) and (owner is null or owner = ? or lease_until < now())
+                """,
+                ps -> {
+                    ps.setString(1, nodeId);
+                    ps.setDouble(2, leaseTtlSeconds);
+                    ps.setArray(3, ps.getConnection().createArrayOf("int4", share));
+                    ps.setString(4, nodeId);
+                });
+        return jdbcTemplate.queryForList(
+                "select partition_no from order_processing_partitions where owner = ? order by partition_no",
+                Integer.class,
+                nodeId);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "order-service";
+        }
+    }
+}
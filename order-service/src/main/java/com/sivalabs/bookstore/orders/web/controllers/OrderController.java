@@ -6,12 +6,15 @@ import com.sivalabs.bookstore.orders.domain.SecurityService;
 import com.sivalabs.bookstore.orders.domain.models.CreateOrderRequest;
 import com.sivalabs.bookstore.orders.domain.models.CreateOrderResponse;
 import com.sivalabs.bookstore.orders.domain.models.OrderDTO;
+import com.sivalabs.bookstore.orders.domain.models.OrderStatus;
 import com.sivalabs.bookstore.orders.domain.models.OrderSummary;
+import com.sivalabs.bookstore.orders.domain.models.OrderSummaryPage;
 import jakarta.validation.Valid;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -19,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 // @SecurityRequirement(name = "security_auth")
 class OrderController {
     private static final Logger log = LoggerFactory.getLogger(OrderController.class);
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private final OrderService orderService;
     private final SecurityService securityService;
@@ -36,11 +40,21 @@ class OrderController {
         return orderService.createOrder(userName, request);
     }
 
+    // newest first, one page at a time. The cursor of the next (older) page comes back in the X-Next-Cursor header,
+    // no header means this was the last page. ?status= narrows the history to one status
     @GetMapping
-    List<OrderSummary> getOrders() {
+    ResponseEntity<List<OrderSummary>> getOrders(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", required = false) Integer size,
+            @RequestParam(name = "status", required = false) OrderStatus status) {
         String userName = securityService.getLoginUserName();
         log.info("Fetching orders for user: {}", userName);
-        return orderService.findOrders(userName);
+        OrderSummaryPage page = orderService.findOrders(userName, status, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.orders());
     }
 
     @GetMapping(value = "/{orderNumber}")
@@ -1,5 +1,7 @@
 package com.sivalabs.bookstore.orders.web.exception;
 
+import com.sivalabs.bookstore.orders.domain.CatalogUnavailableException;
+import com.sivalabs.bookstore.orders.domain.InvalidCursorException;
 import com.sivalabs.bookstore.orders.domain.InvalidOrderException;
 import com.sivalabs.bookstore.orders.domain.OrderNotFoundException;
 import java.net.URI;
@@ -23,6 +25,7 @@ class GlobalExceptionHandler extends ResponseEntityExceptionHandler { // //TODO.
     private static final URI NOT_FOUND_TYPE = URI.create("https://api.bookstore.com/errors/not-found"); // TODO...???
     private static final URI ISE_FOUND_TYPE = URI.create("https://api.bookstore.com/errors/server-error");
     private static final URI BAD_REQUEST_TYPE = URI.create("https://api.bookstore.com/errors/bad-request");
+    private static final URI UNAVAILABLE_TYPE = URI.create("https://api.bookstore.com/errors/service-unavailable");
     private static final String SERVICE_NAME = "order-service";
 
     @ExceptionHandler(Exception.class)
@@ -59,6 +62,29 @@ class GlobalExceptionHandler extends ResponseEntityExceptionHandler { // //TODO.
         return problemDetail;
     }
 
+    // a 503, not a 400: the order may be valid, it could not be checked right now and is worth retrying
+    @ExceptionHandler(CatalogUnavailableException.class)
+    ProblemDetail handleCatalogUnavailableException(CatalogUnavailableException e) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        problemDetail.setTitle("Catalog Service Unavailable");
+        problemDetail.setType(UNAVAILABLE_TYPE);
+        problemDetail.setProperty("service", SERVICE_NAME);
+        problemDetail.setProperty("error_category", "Generic");
+        problemDetail.setProperty("timestamp", Instant.now());
+        return problemDetail;
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    ProblemDetail handleInvalidCursorException(InvalidCursorException e) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+        problemDetail.setTitle("Invalid Page Cursor");
+        problemDetail.setType(BAD_REQUEST_TYPE);
+        problemDetail.setProperty("service", SERVICE_NAME);
+        problemDetail.setProperty("error_category", "Generic");
+        problemDetail.setProperty("timestamp", Instant.now());
+        return problemDetail;
+    }
+
     // TODO...???
     @Override
     @Nullable protected ResponseEntity<Object> handleMethodArgumentNotValid(
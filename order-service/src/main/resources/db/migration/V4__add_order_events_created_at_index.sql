@@ -0,0 +1,2 @@
+-- the outbox publisher claims the oldest events first, "order by created_at, id limit n" walks this index
+create index order_events_created_at_idx on order_events (created_at, id);
@@ -0,0 +1,27 @@
+-- wake-up signals for the background jobs (see JobNotificationListener). NOTIFY is sent when the transaction
+-- commits and identical notifications of one transaction are folded into one, so a statement-level trigger is enough
+create function notify_new_orders() returns trigger as
+$$
+begin
+    perform pg_notify('new_orders', '');
+    return null;
+end
+$$ language plpgsql;
+
+create trigger orders_notify_new_orders
+    after insert on orders
+    for each statement
+execute function notify_new_orders();
+
+create function notify_order_events() returns trigger as
+$$
+begin
+    perform pg_notify('order_events', '');
+    return null;
+end
+$$ language plpgsql;
+
+create trigger order_events_notify
+    after insert on order_events
+    for each statement
+execute function notify_order_events();
@@ -0,0 +1,20 @@
+-- partitioned processing of the NEW-order backlog (see PartitionedOrderProcessingJob). An order belongs to partition
+-- (hashtext(order_number) & 2147483647) % partition-count, every running instance heartbeats into
+-- order_processing_nodes and leases its share of the partitions in order_processing_partitions
+create table order_processing_nodes
+(
+    node_id      text      not null,
+    heartbeat_at timestamp not null,
+    primary key (node_id)
+);
+
+create table order_processing_partitions
+(
+    partition_no integer not null,
+    owner        text,
+    lease_until  timestamp,
+    primary key (partition_no)
+);
+
+-- the backlog is read in id order, only NEW orders are of interest
+create index orders_new_id_idx on orders (id) where status = 'NEW';
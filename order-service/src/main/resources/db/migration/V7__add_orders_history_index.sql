@@ -0,0 +1,9 @@
+-- order history (GET /api/orders) is read newest first per user with a (created_at, id) cursor. created_at was
+-- nullable, rows written without it get their last update time (or now) so the cursor order is total
+update orders set created_at = coalesce(updated_at, now()) where created_at is null;
+alter table orders
+    alter column created_at set default now(),
+    alter column created_at set not null;
+
+-- covers the page query including the optional status filter, pages are served by an index-only scan
+create index orders_username_created_at_id_idx on orders (username, created_at desc, id desc) include (status, order_number);
@@ -0,0 +1,94 @@
+package com.sivalabs.bookstore.orders.clients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sivalabs.bookstore.orders.ApplicationProperties;
+import com.sivalabs.bookstore.orders.testdata.TestProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+class CatalogServiceClientConfigTests {
+
+    private final CatalogServiceClientConfig config = new CatalogServiceClientConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // client ports seen by the server, one per TCP connection
+    private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+    private HttpServer server;
+    private ClientHttpRequestFactory requestFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/products/P100", exchange -> {
+            connections.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "{\"code\":\"P100\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (requestFactory instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void shouldReuseKeptAliveConnections() {
+        RestClient restClient = restClient(Map.of());
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(restClient.get().uri("/api/products/P100").retrieve().body(String.class))
+                    .contains("P100");
+        }
+
+        assertThat(connections).hasSize(1);
+    }
+
+    @Test
+    void shouldPublishPoolMetrics() {
+        restClient(Map.of("orders.catalog-client.max-connections", "7"));
+
+        assertThat(meterRegistry
+                        .get("httpcomponents.httpclient.pool.total.max")
+                        .tag("httpclient", "catalog-service")
+                        .gauge()
+                        .value())
+                .isEqualTo(7);
+    }
+
+    @Test
+    void shouldUseJdkHttpClientForHttp2() {
+        restClient(Map.of("orders.catalog-client.http2", "true"));
+
+        assertThat(requestFactory).isInstanceOf(JdkClientHttpRequestFactory.class);
+    }
+
+    private RestClient restClient(Map<String, String> properties) {
+        Map<String, String> all = new HashMap<>(properties);
+        all.put(
+                "orders.catalog-service-url",
+                "http://localhost:" + server.getAddress().getPort());
+        ApplicationProperties applicationProperties = TestProperties.applicationProperties(all);
+        requestFactory = config.catalogServiceRequestFactory(applicationProperties, meterRegistry);
+        return config.restClient(applicationProperties, requestFactory);
+    }
+}
@@ -0,0 +1,127 @@
+package com.sivalabs.bookstore.orders.clients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.sivalabs.bookstore.orders.testdata.TestProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+class ProductCacheTests {
+    private static final Product PRODUCT = new Product("P100", "Product 1", null, null, new BigDecimal("25.50"));
+
+    private final ProductServiceClient client = mock(ProductServiceClient.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldCacheUnknownProducts() {
+        ProductCache cache = productCache(Map.of());
+        given(client.getProductByCode("P999")).willReturn(Optional.empty());
+
+        assertThat(cache.getProductByCode("P999")).isEmpty();
+        assertThat(cache.getProductByCode("P999")).isEmpty();
+
+        verify(client, times(1)).getProductByCode("P999");
+    }
+
+    @Test
+    void shouldServeStaleProductWhenCatalogServiceIsUnreachable() throws Exception {
+        // long enough that the first product is still fresh when the first call returns, it must not be refreshed yet
+        ProductCache cache = productCache(Map.of("orders.product-cache.ttl", "100ms"));
+        given(client.getProductByCode("P100"))
+                .willReturn(Optional.of(PRODUCT))
+                .willThrow(new ResourceAccessException("Connection refused"));
+
+        cache.getProductByCode("P100");
+        Thread.sleep(150);
+
+        assertThat(cache.getProductByCode("P100")).contains(PRODUCT);
+        assertThat(staleServed()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotRetryAFailedRefreshBeforeTheNextTtl() throws Exception {
+        ProductCache cache = productCache(Map.of("orders.product-cache.ttl", "100ms"));
+        given(client.getProductByCode("P100"))
+                .willReturn(Optional.of(PRODUCT))
+                .willThrow(new ResourceAccessException("Connection refused"));
+
+        cache.getProductByCode("P100");
+        Thread.sleep(150);
+        cache.getProductByCode("P100");
+
+        assertThat(cache.getProductByCode("P100")).contains(PRODUCT);
+        verify(client, times(2)).getProductByCode("P100");
+        assertThat(staleServed()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRefreshAnExpiredProductOnceForConcurrentReads() throws Exception {
+        ProductCache cache = productCache(Map.of("orders.product-cache.ttl", "100ms"));
+        given(client.getProductByCode("P100")).willReturn(Optional.of(PRODUCT)).willAnswer(invocation -> {
+            Thread.sleep(200);
+            return Optional.of(PRODUCT);
+        });
+
+        cache.getProductByCode("P100");
+        Thread.sleep(150);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10; i++) {
+                executor.submit(() -> cache.getProductByCode("P100"));
+            }
+        }
+
+        verify(client, times(2)).getProductByCode("P100");
+    }
+
+    @Test
+    void shouldNotCountRefreshedProductsAsStale() throws Exception {
+        ProductCache cache = productCache(Map.of("orders.product-cache.ttl", "1ms"));
+        given(client.getProductByCode("P100")).willReturn(Optional.of(PRODUCT));
+
+        cache.getProductByCode("P100");
+        Thread.sleep(5);
+
+        assertThat(cache.getProductByCode("P100")).contains(PRODUCT);
+        assertThat(staleServed()).isZero();
+    }
+
+    @Test
+    void shouldNotCountStaleWhileRevalidateReadsAsStaleWhenCatalogServiceIsUp() throws Exception {
+        ProductCache cache = productCache(
+                Map.of("orders.product-cache.ttl", "1ms", "orders.product-cache.stale-while-revalidate", "true"));
+        given(client.getProductByCode("P100")).willReturn(Optional.of(PRODUCT));
+
+        cache.getProductByCode("P100");
+        Thread.sleep(5);
+
+        assertThat(cache.getProductByCode("P100")).contains(PRODUCT);
+        assertThat(staleServed()).isZero();
+    }
+
+    @Test
+    void shouldFailWhenNothingIsCachedAndCatalogServiceIsUnreachable() {
+        ProductCache cache = productCache(Map.of());
+        given(client.getProductByCode("P100")).willThrow(new ResourceAccessException("Connection refused"));
+
+        assertThatThrownBy(() -> cache.getProductByCode("P100")).isInstanceOf(ResourceAccessException.class);
+    }
+
+    private ProductCache productCache(Map<String, String> properties) {
+        return new ProductCache(client, TestProperties.applicationProperties(properties), meterRegistry);
+    }
+
+    private double staleServed() {
+        return meterRegistry.get("orders.product.cache.stale").counter().count();
+    }
+}
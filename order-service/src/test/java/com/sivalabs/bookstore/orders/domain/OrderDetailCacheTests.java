@@ -0,0 +1,92 @@
+package com.sivalabs.bookstore.orders.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.sivalabs.bookstore.orders.domain.models.Address;
+import com.sivalabs.bookstore.orders.domain.models.Customer;
+import com.sivalabs.bookstore.orders.domain.models.OrderDTO;
+import com.sivalabs.bookstore.orders.domain.models.OrderStatus;
+import com.sivalabs.bookstore.orders.testdata.TestProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OrderDetailCacheTests {
+    private static final String ORDER_NUMBER = "order-123";
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private OrderDetailCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new OrderDetailCache(
+                orderRepository, TestProperties.applicationProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldSeeStatusChangeOfOrderInProgressOnceEvicted() {
+        givenOrder(OrderStatus.NEW);
+        assertThat(cache.get("siva", ORDER_NUMBER)).map(OrderDTO::status).contains(OrderStatus.NEW);
+
+        givenOrder(OrderStatus.DELIVERED);
+        assertThat(cache.get("siva", ORDER_NUMBER)).map(OrderDTO::status).contains(OrderStatus.NEW);
+
+        cache.evict(List.of(ORDER_NUMBER));
+        assertThat(cache.get("siva", ORDER_NUMBER)).map(OrderDTO::status).contains(OrderStatus.DELIVERED);
+    }
+
+    @Test
+    void shouldSeeStatusChangeMadeByAnotherInstanceAfterInProgressTtl() throws Exception {
+        cache = new OrderDetailCache(
+                orderRepository,
+                TestProperties.applicationProperties(Map.of("orders.order-cache.in-progress-ttl", "50ms")),
+                new SimpleMeterRegistry());
+        givenOrder(OrderStatus.NEW);
+        cache.get("siva", ORDER_NUMBER);
+
+        // processed by another instance, the eviction happened there
+        givenOrder(OrderStatus.DELIVERED);
+        Thread.sleep(100);
+
+        assertThat(cache.get("siva", ORDER_NUMBER)).map(OrderDTO::status).contains(OrderStatus.DELIVERED);
+    }
+
+    @Test
+    void shouldServeOrderInFinalStatusFromCache() {
+        givenOrder(OrderStatus.DELIVERED);
+
+        cache.get("siva", ORDER_NUMBER);
+        Optional<OrderDTO> order = cache.get("siva", ORDER_NUMBER);
+
+        assertThat(order).map(OrderDTO::status).contains(OrderStatus.DELIVERED);
+        verify(orderRepository, times(1)).findByUserNameAndOrderNumber("siva", ORDER_NUMBER);
+    }
+
+    @Test
+    void shouldNotServeCachedOrderToAnotherUser() {
+        givenOrder(OrderStatus.DELIVERED);
+        cache.get("siva", ORDER_NUMBER);
+
+        assertThat(cache.get("someone-else", ORDER_NUMBER)).isEmpty();
+    }
+
+    private void givenOrder(OrderStatus status) {
+        OrderEntity order = new OrderEntity();
+        order.setOrderNumber(ORDER_NUMBER);
+        order.setUserName("siva");
+        order.setStatus(status);
+        order.setCustomer(new Customer("Siva", "siva@gmail.com", "999999999"));
+        order.setDeliveryAddress(new Address("HNO 123", "Kukatpally", "Hyderabad", "Telangana", "500072", "India"));
+        order.setItems(Set.of());
+        given(orderRepository.findByUserNameAndOrderNumber("siva", ORDER_NUMBER))
+                .willReturn(Optional.of(order));
+    }
+}
@@ -0,0 +1,106 @@
+package com.sivalabs.bookstore.orders.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.sivalabs.bookstore.orders.domain.models.OrderEventType;
+import com.sivalabs.bookstore.orders.testdata.TestProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+class OrderEventPublisherTests {
+    private static final Map<String, String> PROPERTIES =
+            Map.of("orders.order-events-exchange", "orders-exchange", "orders.new-orders-queue", "new-orders");
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+
+    @Test
+    void shouldCompleteWithTrueWhenTheBrokerAcks() {
+        OrderEventPublisher publisher = publisher(true);
+        brokerAnswers(correlationData -> correlationData.getFuture().complete(new CorrelationData.Confirm(true, null)));
+
+        CompletableFuture<Boolean> published = publisher.publish(OrderEventType.ORDER_CREATED, "event-1", "{}");
+
+        assertThat(published).isCompletedWithValue(true);
+    }
+
+    @Test
+    void shouldCompleteWithFalseWhenTheBrokerNacks() {
+        OrderEventPublisher publisher = publisher(true);
+        brokerAnswers(correlationData ->
+                correlationData.getFuture().complete(new CorrelationData.Confirm(false, "queue full")));
+
+        CompletableFuture<Boolean> published = publisher.publish(OrderEventType.ORDER_CREATED, "event-1", "{}");
+
+        assertThat(published).isCompletedWithValue(false);
+    }
+
+    @Test
+    void shouldCompleteWithFalseWhenTheMessageIsReturned() {
+        OrderEventPublisher publisher = publisher(true);
+        brokerAnswers(correlationData -> {
+            correlationData.setReturned(
+                    new ReturnedMessage(new Message(new byte[0]), 312, "NO_ROUTE", "orders-exchange", "new-orders"));
+            correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+        });
+
+        CompletableFuture<Boolean> published = publisher.publish(OrderEventType.ORDER_CREATED, "event-1", "{}");
+
+        assertThat(published).isCompletedWithValue(false);
+    }
+
+    @Test
+    void shouldStayPendingUntilTheBrokerConfirms() {
+        OrderEventPublisher publisher = publisher(true);
+        CorrelationData[] sent = new CorrelationData[1];
+        brokerAnswers(correlationData -> sent[0] = correlationData);
+
+        CompletableFuture<Boolean> published = publisher.publish(OrderEventType.ORDER_CREATED, "event-1", "{}");
+
+        assertThat(published).isNotDone();
+        assertThat(sent[0].getId()).isEqualTo("event-1");
+        sent[0].getFuture().complete(new CorrelationData.Confirm(true, null));
+        assertThat(published).isCompletedWithValue(true);
+    }
+
+    @Test
+    void shouldCountMessagesAsSentWhenConfirmsAreNotEnabledOnTheConnectionFactory() {
+        OrderEventPublisher publisher = publisher(false);
+
+        CompletableFuture<Boolean> published = publisher.publish(OrderEventType.ORDER_CREATED, "event-1", "{}");
+
+        assertThat(published).isCompletedWithValue(true);
+        verify(rabbitTemplate).send(eq("orders-exchange"), eq("new-orders"), any(Message.class));
+    }
+
+    private OrderEventPublisher publisher(boolean confirmsSupported) {
+        given(rabbitTemplate.getConnectionFactory()).willReturn(connectionFactory);
+        given(connectionFactory.isPublisherConfirms()).willReturn(confirmsSupported);
+        return new OrderEventPublisher(
+                rabbitTemplate, TestProperties.applicationProperties(PROPERTIES), new SimpleMeterRegistry());
+    }
+
+    // what the broker does with a message published with a correlation
+    private void brokerAnswers(Consumer<CorrelationData> broker) {
+        willAnswer(invocation -> {
+                    broker.accept(invocation.getArgument(3));
+                    return null;
+                })
+                .given(rabbitTemplate)
+                .send(eq("orders-exchange"), eq("new-orders"), any(Message.class), any(CorrelationData.class));
+    }
+}
@@ -0,0 +1,81 @@
+package com.sivalabs.bookstore.orders.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.sivalabs.bookstore.orders.domain.models.Address;
+import com.sivalabs.bookstore.orders.domain.models.Customer;
+import com.sivalabs.bookstore.orders.domain.models.OrderCreatedEvent;
+import com.sivalabs.bookstore.orders.domain.models.OrderItem;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+// Compares building the AMQP message for one outbox row the old way (payload -> typed event -> Jackson again) with
+// sending the stored payload bytes. Not a test: run main() (after mvn test-compile), the gc profiler reports the
+// allocation per message next to the time
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OrderEventPublishingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Jackson2JsonMessageConverter messageConverter;
+    private String payload;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        messageConverter = new Jackson2JsonMessageConverter(objectMapper);
+        OrderCreatedEvent event = new OrderCreatedEvent(
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(),
+                Set.of(
+                        new OrderItem("P100", "The Hunger Games", new BigDecimal("34.0"), 2),
+                        new OrderItem("P101", "To Kill a Mockingbird", new BigDecimal("45.40"), 1)),
+                new Customer("Siva", "siva@gmail.com", "999999999"),
+                new Address("HNO 123", "Kukatpally", "Hyderabad", "Telangana", "500072", "India"),
+                LocalDateTime.now());
+        payload = objectMapper.writeValueAsString(event);
+    }
+
+    @Benchmark
+    public Message deserializeAndConvert() throws Exception {
+        OrderCreatedEvent event = objectMapper.readValue(payload, OrderCreatedEvent.class);
+        return messageConverter.toMessage(event, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message rawPayload() {
+        return OrderEventPublisher.toMessage(payload, OrderCreatedEvent.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                        .include(OrderEventPublishingBenchmark.class.getSimpleName())
+                        .addProfiler(GCProfiler.class)
+                        .build())
+                .run();
+    }
+}
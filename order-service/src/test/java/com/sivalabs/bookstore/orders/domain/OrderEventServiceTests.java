@@ -0,0 +1,80 @@
+package com.sivalabs.bookstore.orders.domain;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sivalabs.bookstore.orders.domain.models.OrderEventType;
+import com.sivalabs.bookstore.orders.testdata.TestProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class OrderEventServiceTests {
+
+    private final OrderEventRepository orderEventRepository = mock(OrderEventRepository.class);
+    private final OrderEventPublisher orderEventPublisher = mock(OrderEventPublisher.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private OrderEventService orderEventService;
+
+    @BeforeEach
+    void setUp() {
+        orderEventService = new OrderEventService(
+                orderEventRepository,
+                orderEventPublisher,
+                new ObjectMapper(),
+                mock(PlatformTransactionManager.class),
+                mock(ApplicationEventPublisher.class),
+                jdbcTemplate,
+                TestProperties.applicationProperties(),
+                new SimpleMeterRegistry());
+        given(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyInt()))
+                .willReturn(true);
+        given(orderEventPublisher.onDedicatedChannel(any()))
+                .willAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+    }
+
+    @Test
+    void shouldKeepLaterEventsOfAnOrderWhoseEarlierEventWasNotConfirmed() {
+        given(orderEventRepository.claimBatch(anyInt()))
+                .willReturn(List.of(
+                        event(1L, "order-1", "e1"),
+                        event(2L, "order-2", "e2"),
+                        event(3L, "order-1", "e3"),
+                        event(4L, "order-2", "e4")));
+        givenConfirm("e1", false);
+        givenConfirm("e2", true);
+        givenConfirm("e3", true);
+        givenConfirm("e4", true);
+
+        orderEventService.publishOrderEvents();
+
+        verify(orderEventRepository).deleteAllByIdInBatch(List.of(2L, 4L));
+    }
+
+    private void givenConfirm(String eventId, boolean confirmed) {
+        given(orderEventPublisher.publish(any(), eq(eventId), any()))
+                .willReturn(CompletableFuture.completedFuture(confirmed));
+    }
+
+    private static OrderEventEntity event(Long id, String orderNumber, String eventId) {
+        OrderEventEntity event = new OrderEventEntity();
+        event.setId(id);
+        event.setOrderNumber(orderNumber);
+        event.setEventId(eventId);
+        event.setEventType(OrderEventType.ORDER_DELIVERED);
+        event.setPayload("{}");
+        return event;
+    }
+}
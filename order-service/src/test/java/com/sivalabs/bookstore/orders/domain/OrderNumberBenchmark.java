@@ -0,0 +1,104 @@
+package com.sivalabs.bookstore.orders.domain;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Random (UUIDv4) against time-ordered (UUIDv7) order numbers. Not a test: run main() after mvn test-compile.
+// generate needs nothing, insert writes batches of numbers into a table with a unique text index like
+// orders.order_number and needs a Postgres at -Dbenchmark.jdbc-url (default: the docker compose orders database).
+// main("generate") runs only the generator benchmark
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+public class OrderNumberBenchmark {
+
+    private static final int INSERT_BATCH_SIZE = 100;
+
+    @State(Scope.Benchmark)
+    public static class Generator {
+        @Param({"random", "time-ordered"})
+        String scheme;
+
+        OrderNumberGenerator generator;
+
+        @Setup
+        public void setup() {
+            generator =
+                    scheme.equals("random") ? new RandomOrderNumberGenerator() : new TimeOrderedOrderNumberGenerator();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Database {
+        Connection connection;
+        PreparedStatement insert;
+
+        @Setup(Level.Trial)
+        public void setup() throws SQLException {
+            connection = DriverManager.getConnection(
+                    System.getProperty("benchmark.jdbc-url", "jdbc:postgresql://localhost:25432/postgres"),
+                    System.getProperty("benchmark.jdbc-username", "postgres"),
+                    System.getProperty("benchmark.jdbc-password", "postgres"));
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("drop table if exists order_number_benchmark");
+                statement.execute("create table order_number_benchmark (order_number text not null unique)");
+            }
+            insert = connection.prepareStatement("insert into order_number_benchmark (order_number) values (?)");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("drop table order_number_benchmark");
+            }
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generate(Generator generator) {
+        return generator.generator.next();
+    }
+
+    // one invocation commits a batch of INSERT_BATCH_SIZE rows, the score is rows/s. The table keeps growing over the
+    // run, the gap between the schemes widens once the index no longer fits in shared_buffers
+    @Benchmark
+    @OperationsPerInvocation(INSERT_BATCH_SIZE)
+    public int[] insert(Generator generator, Database database) throws SQLException {
+        for (int i = 0; i < INSERT_BATCH_SIZE; i++) {
+            database.insert.setString(1, generator.generator.next());
+            database.insert.addBatch();
+        }
+        return database.insert.executeBatch();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = OrderNumberBenchmark.class.getSimpleName() + (args.length > 0 ? "." + args[0] : "");
+        new Runner(new OptionsBuilder().include(include).build()).run();
+    }
+}
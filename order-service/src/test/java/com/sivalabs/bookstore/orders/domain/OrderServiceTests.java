@@ -0,0 +1,192 @@
+package com.sivalabs.bookstore.orders.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.sivalabs.bookstore.orders.domain.models.Address;
+import com.sivalabs.bookstore.orders.domain.models.Customer;
+import com.sivalabs.bookstore.orders.domain.models.OrderStatus;
+import com.sivalabs.bookstore.orders.testdata.TestProperties;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class OrderServiceTests {
+
+    private final OrdersTable orders = new OrdersTable();
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderEventService orderEventService = mock(OrderEventService.class);
+    private final OrderDetailCache orderDetailCache = mock(OrderDetailCache.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final List<Object> savedEvents = new ArrayList<>();
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService(
+                orderRepository,
+                mock(OrderValidator.class),
+                orderEventService,
+                mock(OrderNumberGenerator.class),
+                orderDetailCache,
+                orders,
+                transactionManager,
+                TestProperties.applicationProperties(Map.of("orders.process-new-orders-chunk-size", "2")));
+        given(orderRepository.findWithItemsByIdIn(anyList()))
+                .willAnswer(invocation -> orders.entities(invocation.getArgument(0)));
+    }
+
+    @Test
+    void shouldOnlyProcessOrdersStillNewAndNotLockedByAnotherWorker() {
+        orders.add(1, OrderStatus.NEW);
+        orders.add(2, OrderStatus.NEW);
+        orders.add(3, OrderStatus.NEW);
+        orders.lockedByOthers.add(2L);
+        recordSavedEvents();
+
+        orderService.processNewOrders();
+
+        assertThat(orders.status(1)).isEqualTo(OrderStatus.DELIVERED);
+        assertThat(orders.status(2)).isEqualTo(OrderStatus.NEW);
+        assertThat(orders.status(3)).isEqualTo(OrderStatus.DELIVERED);
+        assertThat(savedEvents).hasSize(2);
+        // chunks [1, 2] and [3]
+        verify(orderDetailCache).evict(List.of("order-1"));
+        verify(orderDetailCache).evict(List.of("order-3"));
+    }
+
+    @Test
+    void shouldRollBackOnlyTheFailingChunk() {
+        for (long id = 1; id <= 5; id++) {
+            orders.add(id, OrderStatus.NEW);
+        }
+        willThrow(new IllegalStateException("outbox down"))
+                .willAnswer(invocation -> savedEvents.addAll(invocation.getArgument(0)))
+                .given(orderEventService)
+                .saveAll(anyList());
+
+        orderService.processNewOrders();
+
+        // chunks [1, 2], [3, 4], [5]: the first one fails, the other two still commit
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(2)).commit(any());
+        assertThat(savedEvents).hasSize(3);
+    }
+
+    private void recordSavedEvents() {
+        willAnswer(invocation -> savedEvents.addAll(invocation.getArgument(0)))
+                .given(orderEventService)
+                .saveAll(anyList());
+    }
+
+    // the orders table as far as processNewOrders uses it: the id chunk query, the claim and the status update
+    static class OrdersTable extends JdbcTemplate {
+        final Map<Long, OrderEntity> rows = new TreeMap<>();
+        final Set<Long> lockedByOthers = new HashSet<>();
+
+        void add(long id, OrderStatus status) {
+            OrderEntity order = new OrderEntity();
+            order.setId(id);
+            order.setOrderNumber("order-" + id);
+            order.setStatus(status);
+            order.setCustomer(new Customer("Siva", "siva@gmail.com", "999999999"));
+            order.setDeliveryAddress(new Address("HNO 123", "Kukatpally", "Hyderabad", "Telangana", "500072", "India"));
+            order.setItems(Set.of());
+            rows.put(id, order);
+        }
+
+        OrderStatus status(long id) {
+            return rows.get(id).getStatus();
+        }
+
+        List<OrderEntity> entities(Collection<Long> ids) {
+            return ids.stream().map(rows::get).toList();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, PreparedStatementSetter setter, RowMapper<T> rowMapper) {
+            Object[] params = params(setter);
+            if (sql.contains("limit")) {
+                long afterId = (Long) params[1];
+                int limit = (Integer) params[4];
+                return (List<T>) rows.values().stream()
+                        .filter(order -> order.getStatus() == OrderStatus.NEW && order.getId() > afterId)
+                        .map(OrderEntity::getId)
+                        .limit(limit)
+                        .toList();
+            }
+            if (sql.contains("for update skip locked")) {
+                return (List<T>) Arrays.stream((Object[]) params[1])
+                        .map(Long.class::cast)
+                        .filter(id -> rows.get(id).getStatus() == OrderStatus.NEW && !lockedByOthers.contains(id))
+                        .toList();
+            }
+            throw new IllegalArgumentException("Unexpected query: " + sql);
+        }
+
+        @Override
+        public int update(String sql, PreparedStatementSetter setter) {
+            Object[] params = params(setter);
+            OrderStatus status = OrderStatus.valueOf((String) params[1]);
+            List<Object> orderNumbers = Arrays.asList((Object[]) params[2]);
+            int updated = 0;
+            for (OrderEntity order : rows.values()) {
+                if (orderNumbers.contains(order.getOrderNumber()) && order.getStatus() == OrderStatus.NEW) {
+                    order.setStatus(status);
+                    updated++;
+                }
+            }
+            return updated;
+        }
+
+        // the parameters the setter binds, by index. Arrays are unwrapped to their elements
+        private static Object[] params(PreparedStatementSetter setter) {
+            Object[] params = new Object[8];
+            Connection connection = mock(Connection.class, invocation -> {
+                Object[] elements = invocation.getArgument(1);
+                return mock(Array.class, arrayInvocation -> elements);
+            });
+            PreparedStatement ps = mock(PreparedStatement.class, invocation -> {
+                String method = invocation.getMethod().getName();
+                if (method.equals("getConnection")) {
+                    return connection;
+                }
+                if (method.startsWith("set")) {
+                    Object value = invocation.getArgument(1);
+                    params[(Integer) invocation.getArgument(0)] =
+                            value instanceof Array array ? array.getArray() : value;
+                }
+                return null;
+            });
+            try {
+                setter.setValues(ps);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return params;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.sivalabs.bookstore.orders.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.sivalabs.bookstore.orders.clients.Product;
+import com.sivalabs.bookstore.orders.clients.ProductCache;
+import com.sivalabs.bookstore.orders.domain.models.CreateOrderRequest;
+import com.sivalabs.bookstore.orders.domain.models.OrderItem;
+import com.sivalabs.bookstore.orders.testdata.TestProperties;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+class OrderValidatorTests {
+    private static final Product PRODUCT = new Product("P100", "Product 1", null, null, new BigDecimal("25.50"));
+
+    private final ProductCache productCache = mock(ProductCache.class);
+    private final OrderValidator orderValidator = new OrderValidator(
+            productCache, TestProperties.applicationProperties(Map.of("orders.order-validation-timeout", "500ms")));
+
+    @Test
+    void shouldLookUpEveryProductCodeOnce() {
+        given(productCache.getProductByCode("P100")).willReturn(Optional.of(PRODUCT));
+
+        orderValidator.validate(request(
+                new OrderItem("P100", "Product 1", new BigDecimal("25.50"), 1),
+                new OrderItem("P100", "Product 1 (gift)", new BigDecimal("25.50"), 2)));
+
+        verify(productCache, times(1)).getProductByCode("P100");
+    }
+
+    @Test
+    void shouldFailOnTheFirstInvalidItemWithoutWaitingForTheOthers() {
+        given(productCache.getProductByCode("P100")).willAnswer(invocation -> {
+            Thread.sleep(Duration.ofSeconds(5));
+            return Optional.of(PRODUCT);
+        });
+        given(productCache.getProductByCode("P999")).willReturn(Optional.empty());
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> orderValidator.validate(request(
+                        new OrderItem("P100", "Product 1", new BigDecimal("25.50"), 1),
+                        new OrderItem("P999", "Unknown", new BigDecimal("10.00"), 1))))
+                .isInstanceOf(InvalidOrderException.class)
+                .hasMessage("Invalid Product code:P999");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void shouldFailWhenTheLookupsDoNotCompleteBeforeTheDeadline() {
+        given(productCache.getProductByCode("P100")).willAnswer(invocation -> {
+            Thread.sleep(Duration.ofSeconds(5));
+            return Optional.of(PRODUCT);
+        });
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> orderValidator.validate(
+                        request(new OrderItem("P100", "Product 1", new BigDecimal("25.50"), 1))))
+                .isInstanceOf(CatalogUnavailableException.class)
+                .hasMessage("Product validation timed out");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void shouldReportAFailedLookupAsCatalogUnavailable() {
+        given(productCache.getProductByCode("P100")).willThrow(new ResourceAccessException("Connection refused"));
+
+        assertThatThrownBy(() -> orderValidator.validate(
+                        request(new OrderItem("P100", "Product 1", new BigDecimal("25.50"), 1))))
+                .isInstanceOf(CatalogUnavailableException.class)
+                .hasCauseInstanceOf(ResourceAccessException.class);
+    }
+
+    private static CreateOrderRequest request(OrderItem... items) {
+        return new CreateOrderRequest(Set.of(items), null, null);
+    }
+}
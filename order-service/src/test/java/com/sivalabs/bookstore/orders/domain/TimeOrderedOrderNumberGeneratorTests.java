@@ -0,0 +1,54 @@
+package com.sivalabs.bookstore.orders.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class TimeOrderedOrderNumberGeneratorTests {
+
+    private final TimeOrderedOrderNumberGenerator generator = new TimeOrderedOrderNumberGenerator();
+
+    @Test
+    void shouldGenerateIncreasingNumbers() {
+        // enough numbers in a tight loop that the 12 bit sequence overflows into the next millisecond
+        List<String> numbers =
+                IntStream.range(0, 100_000).mapToObj(i -> generator.next()).toList();
+
+        for (int i = 1; i < numbers.size(); i++) {
+            assertThat(numbers.get(i)).isGreaterThan(numbers.get(i - 1));
+        }
+    }
+
+    @Test
+    void shouldGenerateVersion7Uuids() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UUID.fromString(generator.next());
+
+        assertThat(uuid.version()).isEqualTo(7);
+        // IETF variant, the two top bits of the 9th byte are 10
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(uuid.getMostSignificantBits() >>> 16).isBetween(before, System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    void shouldGenerateUniqueNumbersAcrossThreads() throws Exception {
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Runnable> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                tasks.add(() -> IntStream.range(0, 10_000).forEach(i -> numbers.add(generator.next())));
+            }
+            tasks.forEach(executor::execute);
+        }
+
+        assertThat(numbers).hasSize(80_000);
+    }
+}
@@ -0,0 +1,19 @@
+package com.sivalabs.bookstore.orders.testdata;
+
+import com.sivalabs.bookstore.orders.ApplicationProperties;
+import java.util.Map;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+// ApplicationProperties for unit tests: the @DefaultValue defaults plus the given orders.* properties
+public class TestProperties {
+
+    public static ApplicationProperties applicationProperties() {
+        return applicationProperties(Map.of());
+    }
+
+    public static ApplicationProperties applicationProperties(Map<String, String> properties) {
+        return new Binder(new MapConfigurationPropertySource(properties))
+                .bindOrCreate("orders", ApplicationProperties.class);
+    }
+}
@@ -3,6 +3,8 @@ package com.sivalabs.bookstore.orders.web.controllers;
 import static io.restassured.RestAssured.given;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 
 import com.sivalabs.bookstore.orders.AbstractIT;
@@ -103,6 +105,36 @@ class OrderControllerTests extends AbstractIT {
 
             assertThat(orderSummaries).hasSize(2);
         }
+
+        @Test
+        void shouldPageThroughOrdersNewestFirst() {
+            var firstPage = given().queryParam("size", 1)
+                    .when()
+                    .get("/api/orders")
+                    .then()
+                    .statusCode(200);
+            firstPage.body("orderNumber", contains("order-456"));
+            String cursor = firstPage.extract().header("X-Next-Cursor");
+            assertThat(cursor).isNotNull();
+
+            given().queryParam("size", 1)
+                    .queryParam("cursor", cursor)
+                    .when()
+                    .get("/api/orders")
+                    .then()
+                    .statusCode(200)
+                    .header("X-Next-Cursor", nullValue())
+                    .body("orderNumber", contains("order-123"));
+        }
+
+        @Test
+        void shouldReturnBadRequestForInvalidCursor() {
+            given().queryParam("cursor", "not-a-cursor")
+                    .when()
+                    .get("/api/orders")
+                    .then()
+                    .statusCode(HttpStatus.BAD_REQUEST.value());
+        }
     }
 
     @Nested
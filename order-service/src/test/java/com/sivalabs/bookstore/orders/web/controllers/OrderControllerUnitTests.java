@@ -7,14 +7,17 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sivalabs.bookstore.orders.domain.CatalogUnavailableException;
 import com.sivalabs.bookstore.orders.domain.OrderService;
 import com.sivalabs.bookstore.orders.domain.SecurityService;
 import com.sivalabs.bookstore.orders.domain.models.CreateOrderRequest;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -57,6 +60,18 @@ class OrderControllerUnitTests {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void shouldReturnServiceUnavailableWhenProductsCannotBeValidatedInTime() throws Exception {
+        given(orderService.createOrder(eq("siva"), any(CreateOrderRequest.class)))
+                .willThrow(new CatalogUnavailableException("Product validation timed out"));
+
+        mockMvc.perform(post("/api/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createValidOrderRequest())))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.title").value("Catalog Service Unavailable"));
+    }
+
     static Stream<Arguments> createOrderRequestProvider() {
         return Stream.of(
                 arguments(named("Order with Invalid Customer", createOrderRequestWithInvalidCustomer())),